@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.barchart.jenkins.cascade.ProjectEventLog;
+import com.barchart.jenkins.cascade.ProjectRole;
+import com.barchart.jenkins.cascade.RunLock;
+
+/**
+ * Benchmark queue and build listener hot paths: family event log and run
+ * lock counters.
+ * 
+ * @author Andrei Pozolotin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchEventLog {
+
+	private ProjectEventLog eventLog;
+
+	private RunLock runLock;
+
+	@Benchmark
+	public ProjectEventLog.Event append() {
+		return eventLog.append("Build started: member-project #123");
+	}
+
+	@Benchmark
+	public String renderPage() {
+		return eventLog.render(0, ProjectEventLog.PAGE_SIZE);
+	}
+
+	@Benchmark
+	public boolean runLock() {
+		runLock.setActive(ProjectRole.MEMBER, true);
+		final boolean isActive = runLock.hasCascade("member-project")
+				|| runLock.hasLayout("member-project");
+		runLock.setActive(ProjectRole.MEMBER, false);
+		return isActive;
+	}
+
+	@Setup
+	public void setup() {
+		/** Memory only, not attached to a file. */
+		eventLog = new ProjectEventLog("bench");
+		for (int index = 0; index < ProjectEventLog.LIMIT_COUNT; index++) {
+			eventLog.append("Build finalized: member-project #" + index
+					+ " SUCCESS");
+		}
+		runLock = new RunLock("bench");
+	}
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package bench;
+
+import static org.mockito.Mockito.*;
+import hudson.maven.MavenModule;
+import hudson.maven.MavenModuleSet;
+import hudson.maven.ModuleName;
+import hudson.model.AbstractProject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.barchart.jenkins.cascade.ProjectIdentity;
+import com.barchart.jenkins.cascade.ProjectRegistry;
+import com.barchart.jenkins.cascade.ProjectRole;
+
+/**
+ * Benchmark project registry lookups over registered synthetic projects.
+ * <p>
+ * Projects are mocks, since real projects need a running jenkins; every
+ * lookup pays for identity and root module verification through them.
+ *
+ * @author Andrei Pozolotin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchIdentity {
+
+	/**
+	 * Number of members per family.
+	 */
+	public static final int FAMILY_SIZE = 100;
+
+	public static final String GROUP = "bench";
+
+	static String familyID(final int index) {
+		return "family-" + (index / FAMILY_SIZE);
+	}
+
+	static String memberName(final int index) {
+		return "member-" + index;
+	}
+
+	@Param({ "1000", "10000", "50000" })
+	public int itemCount;
+
+	private List<ProjectIdentity> identityList;
+
+	private final Random random = new Random(0);
+
+	/**
+	 * Family member lookup by identity, through identity helper.
+	 */
+	@Benchmark
+	@SuppressWarnings("rawtypes")
+	public AbstractProject abstractProject() {
+		return ProjectIdentity.abstractProject(target(),
+				ProjectIdentity.Mode.ROLE_FAMILY_PROJECT);
+	}
+
+	/**
+	 * Family member lookup by identity, directly in registry.
+	 */
+	@Benchmark
+	@SuppressWarnings("rawtypes")
+	public AbstractProject find() {
+		return ProjectRegistry.find(target());
+	}
+
+	/**
+	 * Family member lookup by root module name.
+	 */
+	@Benchmark
+	public MavenModuleSet memberProject() {
+		final int index = random.nextInt(itemCount);
+		return ProjectRegistry.memberProject(familyID(index), new ModuleName(
+				GROUP, memberName(index)));
+	}
+
+	/**
+	 * Registered member project with identity and root module.
+	 */
+	private MavenModuleSet project(final int index,
+			final ProjectIdentity identity) {
+		final MavenModule module = mock(MavenModule.class);
+		when(module.getModuleName()).thenReturn(
+				new ModuleName(GROUP, memberName(index)));
+		final MavenModuleSet project = mock(MavenModuleSet.class);
+		when(project.getProperty(ProjectIdentity.class)).thenReturn(identity);
+		when(project.getRootModule()).thenReturn(module);
+		return project;
+	}
+
+	@Setup
+	public void setup() {
+		identityList = new ArrayList<ProjectIdentity>(itemCount);
+		for (int index = 0; index < itemCount; index++) {
+			final ProjectIdentity identity = new ProjectIdentity(
+					ProjectRole.MEMBER, familyID(index), "project-" + index);
+			ProjectRegistry.register(project(index, identity), identity);
+			identityList.add(identity);
+		}
+	}
+
+	private ProjectIdentity target() {
+		final ProjectIdentity source = identityList.get(random
+				.nextInt(itemCount));
+		/** Fresh instance, as produced from job config. */
+		return new ProjectIdentity(source.getProjectRole(),
+				source.getFamilyID(), source.getProjectID());
+	}
+
+}
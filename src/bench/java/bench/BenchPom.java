@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package bench;
+
+import hudson.FilePath;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.barchart.jenkins.cascade.MavenModelCache;
+import com.barchart.jenkins.cascade.MavenPomRewriter;
+import com.barchart.jenkins.cascade.PluginUtilities;
+
+/**
+ * Benchmark pom.xml parsing and rewriting.
+ * 
+ * @author Andrei Pozolotin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchPom {
+
+	/**
+	 * Synthetic member pom.xml with snapshot parent and dependencies.
+	 */
+	public static String pomText(final int dependencyCount) {
+		final StringBuilder text = new StringBuilder();
+		text.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		text.append("<project>\n");
+		text.append("\t<modelVersion>4.0.0</modelVersion>\n");
+		text.append("\t<parent>\n");
+		text.append("\t\t<groupId>bench</groupId>\n");
+		text.append("\t\t<artifactId>parent</artifactId>\n");
+		text.append("\t\t<version>1.0.0-SNAPSHOT</version>\n");
+		text.append("\t</parent>\n");
+		text.append("\t<artifactId>member</artifactId>\n");
+		text.append("\t<version>1.0.0-SNAPSHOT</version>\n");
+		text.append("\t<dependencies>\n");
+		for (int index = 0; index < dependencyCount; index++) {
+			text.append("\t\t<!-- dependency ").append(index).append(" -->\n");
+			text.append("\t\t<dependency>\n");
+			text.append("\t\t\t<groupId>bench</groupId>\n");
+			text.append("\t\t\t<artifactId>module-").append(index)
+					.append("</artifactId>\n");
+			text.append("\t\t\t<version>1.0.").append(index)
+					.append("-SNAPSHOT</version>\n");
+			text.append("\t\t</dependency>\n");
+		}
+		text.append("\t</dependencies>\n");
+		text.append("</project>\n");
+		return text.toString();
+	}
+
+	@Param({ "10", "100" })
+	public int dependencyCount;
+
+	private File folder;
+
+	private FilePath pomFile;
+
+	private String pomText;
+
+	private Map<String, String> versionMap;
+
+	@Benchmark
+	public List<Dependency> mavenDependencies() throws Exception {
+		return PluginUtilities.mavenDependencies(pomFile,
+				PluginUtilities.MATCH_SNAPSHOT);
+	}
+
+	/**
+	 * Parse with model cache hit.
+	 */
+	@Benchmark
+	public Model mavenModelCached() throws Exception {
+		return PluginUtilities.mavenModel(pomFile);
+	}
+
+	/**
+	 * Parse with model cache miss.
+	 */
+	@Benchmark
+	public Model mavenModelCold() throws Exception {
+		MavenModelCache.clear();
+		return PluginUtilities.mavenModel(pomFile);
+	}
+
+	@Benchmark
+	public String pomRewrite() {
+		final List<String> changeList = new ArrayList<String>();
+		return MavenPomRewriter.rewrite(pomText, versionMap, changeList);
+	}
+
+	@Setup
+	public void setup() throws Exception {
+		folder = File.createTempFile("bench-pom-", "");
+		folder.delete();
+		folder.mkdirs();
+		pomText = pomText(dependencyCount);
+		pomFile = new FilePath(new File(folder, "pom.xml"));
+		pomFile.write(pomText, "UTF-8");
+		versionMap = new HashMap<String, String>();
+		versionMap.put("bench:parent", "1.0.0");
+		for (int index = 0; index < dependencyCount; index += 2) {
+			versionMap.put("bench:module-" + index, "1.0." + index);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		new FilePath(folder).deleteRecursive();
+	}
+
+}
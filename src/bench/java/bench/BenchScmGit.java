@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package bench;
+
+import hudson.FilePath;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.barchart.jenkins.cascade.PluginScmGit;
+import com.barchart.jenkins.cascade.PluginScmGitCache;
+
+/**
+ * Benchmark git status and commit against a local fixture repository.
+ * 
+ * @author Andrei Pozolotin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchScmGit {
+
+	public static final String POM_FILE = "pom.xml";
+
+	private int counter;
+
+	/**
+	 * Number of tracked files in the fixture work tree.
+	 */
+	@Param({ "100", "1000" })
+	public int fileCount;
+
+	private final PersonIdent person = new PersonIdent("bench",
+			"bench@localhost");
+
+	private File workspace;
+
+	/**
+	 * Change, add and commit pom.xml.
+	 */
+	@Benchmark
+	public RevCommit commit() throws Exception {
+		new FilePath(new File(workspace, POM_FILE)).write("<project>"
+				+ counter++ + "</project>\n", "UTF-8");
+		PluginScmGit.doAdd(workspace, POM_FILE);
+		return PluginScmGit.doCommit(workspace, person, "[cascade] "
+				+ POM_FILE);
+	}
+
+	@Setup
+	public void setup() throws Exception {
+		workspace = File.createTempFile("bench-git-", "");
+		workspace.delete();
+		workspace.mkdirs();
+		Git.init().setDirectory(workspace).call().getRepository().close();
+		for (int index = 0; index < fileCount; index++) {
+			final File file = new File(workspace, "module-" + (index % 10)
+					+ "/file-" + index + ".txt");
+			new FilePath(file).write("file " + index + "\n", "UTF-8");
+		}
+		new FilePath(new File(workspace, POM_FILE)).write("<project/>\n",
+				"UTF-8");
+		PluginScmGit.doAdd(workspace, ".");
+		PluginScmGit.doCommit(workspace, person, "fixture");
+	}
+
+	@Benchmark
+	public Status status() {
+		return PluginScmGit.doStatus(workspace);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		PluginScmGitCache.evict(workspace);
+		new FilePath(workspace).deleteRecursive();
+	}
+
+}
@@ -10,10 +10,13 @@ package com.barchart.jenkins.cascade;
 import hudson.Launcher;
 import hudson.maven.MavenModuleSet;
 import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractBuild.AbstractBuildExecution;
 import hudson.model.AbstractProject;
 
+import java.io.OutputStream;
+
 /**
  * Build context bean.
  * 
@@ -42,6 +45,15 @@ public class BuildContext<B extends AbstractBuild<?, ?>> extends BuildLogger {
 		this.launcher = execution.getLauncher();
 	}
 
+	/**
+	 * Same context with log collected into a buffer, such as for a
+	 * concurrent release branch.
+	 */
+	public BuildContext<B> branch(final OutputStream buffer) {
+		return new BuildContext<B>(build, launcher, new StreamBuildListener(
+				buffer, build.getCharset()));
+	}
+
 	/**
 	 * Context build.
 	 */
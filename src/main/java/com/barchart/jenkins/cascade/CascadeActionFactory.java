@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Run;
+import hudson.model.TransientBuildActionFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Factory provides cascade actions for cascade builds.
+ * 
+ * @author Andrei Pozolotin
+ */
+@Extension
+public class CascadeActionFactory extends TransientBuildActionFactory {
+
+	/**
+	 * Interested in cascade builds.
+	 */
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Collection<? extends Action> createFor(final Run target) {
+
+		final List<Action> actionList = new ArrayList<Action>();
+
+		if (!(target instanceof CascadeBuild)) {
+			return actionList;
+		}
+
+		final CascadeBuild build = (CascadeBuild) target;
+
+		actionList.add(new CascadeResumeAction(build));
+
+		return actionList;
+
+	}
+
+}
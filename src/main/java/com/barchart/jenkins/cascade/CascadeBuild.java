@@ -7,14 +7,21 @@
  */
 package com.barchart.jenkins.cascade;
 
+import static com.barchart.jenkins.cascade.PluginUtilities.*;
 import hudson.model.Build;
 import hudson.model.BuildListener;
 import hudson.model.Result;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -38,13 +45,61 @@ public class CascadeBuild extends Build<CascadeProject, CascadeBuild> implements
 			final BuildContext<CascadeBuild> context = new BuildContext<CascadeBuild>(
 					CascadeBuild.this, getLauncher(), listener);
 
-			return CascadeLogic.process(context);
+			final long startTime = System.currentTimeMillis();
+
+			Result result = Result.FAILURE;
+			try {
+				result = CascadeLogic.process(context);
+				return result;
+			} finally {
+				CascadeLogic.metrics(context, result, startTime);
+			}
 		}
 
 	}
 
+	/**
+	 * Serializes checkpoints, apart from the build monitor.
+	 */
+	private final transient Object checkpointLock = new Object();
+
+	/**
+	 * [ member project name : last scm commit ]
+	 */
+	private Map<String, String> commitMap;
+
+	/**
+	 * Member pom.xml summaries, valid during build execution only.
+	 */
+	private transient MavenPomSnapshot pomSnapshot;
+
+	/**
+	 * Number of artifacts released by this build execution.
+	 */
+	private transient int releaseCount;
+
 	private Set<CascadeResult> resultSet;
 
+	/**
+	 * Number of cascade build which resumed this one, or 0.
+	 */
+	private int resumedBy;
+
+	/**
+	 * Resume is requested, resuming build did not start yet.
+	 */
+	private transient boolean resumePending;
+
+	/**
+	 * Member release coordinator, valid during build execution only.
+	 */
+	private transient CascadeScheduler scheduler;
+
+	/**
+	 * Guards execution state, apart from the build monitor.
+	 */
+	private final transient Object stateLock = new Object();
+
 	/** New build form UI. */
 	public CascadeBuild(final CascadeProject project) throws IOException {
 		super(project);
@@ -58,6 +113,119 @@ public class CascadeBuild extends Build<CascadeProject, CascadeBuild> implements
 		setup(project);
 	}
 
+	/**
+	 * Drop resume request which could not be scheduled.
+	 */
+	public void cancelResume() {
+		synchronized (stateLock) {
+			resumePending = false;
+		}
+	}
+
+	/**
+	 * Store artifact released by this build execution.
+	 */
+	public void addResult(final CascadeResult result) {
+		synchronized (resultSet) {
+			if (resultSet.add(result)) {
+				releaseCount++;
+			}
+		}
+	}
+
+	/**
+	 * Persist cascade progress, so a failed cascade can be resumed.
+	 */
+	public void checkpoint() {
+		final CascadeTimingAction timing = getTiming();
+		final Object timingLock = timing == null ? new Object() : timing;
+		synchronized (checkpointLock) {
+			synchronized (resultSet) {
+				synchronized (timingLock) {
+					try {
+						save();
+					} catch (final IOException e) {
+						log.log(Level.WARNING, "Checkpoint failure: " + this,
+								e);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Record member scm commit and persist cascade progress.
+	 */
+	public void checkpoint(final String projectName, final String commit) {
+		synchronized (resultSet) {
+			commitMap.put(projectName, commit);
+		}
+		checkpoint();
+	}
+
+	/**
+	 * Last scm commit of member projects changed by this cascade.
+	 */
+	@Jelly
+	public Map<String, String> getCommitMap() {
+		synchronized (resultSet) {
+			return new TreeMap<String, String>(commitMap);
+		}
+	}
+
+	/**
+	 * Planned modules which are not released yet.
+	 */
+	@Jelly
+	public List<String> getPendingList() {
+		final List<String> pendingList = new ArrayList<String>();
+		final CascadePlanAction plan = getPlan();
+		if (plan == null) {
+			return pendingList;
+		}
+		final Set<String> releasedSet = new HashSet<String>();
+		synchronized (resultSet) {
+			for (final CascadeResult result : resultSet) {
+				releasedSet.add(moduleName(result.getArtifact()).toString());
+			}
+		}
+		for (final String module : plan.getOrderList()) {
+			if (!releasedSet.contains(module)) {
+				pendingList.add(module);
+			}
+		}
+		return pendingList;
+	}
+
+	/**
+	 * Release plan of this cascade build, or null.
+	 */
+	public CascadePlanAction getPlan() {
+		return getAction(CascadePlanAction.class);
+	}
+
+	/**
+	 * Member pom.xml summaries shared by cascade logic.
+	 */
+	public MavenPomSnapshot getPomSnapshot() {
+		synchronized (stateLock) {
+			if (pomSnapshot == null) {
+				pomSnapshot = new MavenPomSnapshot();
+			}
+			return pomSnapshot;
+		}
+	}
+
+	/**
+	 * Number of artifacts released by this build execution, without results
+	 * inherited from a resumed build.
+	 */
+	public int getReleaseCount() {
+		synchronized (resultSet) {
+			return releaseCount;
+		}
+	}
+
 	/**
 	 * Artifacts release in this cascade build.
 	 */
@@ -65,11 +233,120 @@ public class CascadeBuild extends Build<CascadeProject, CascadeBuild> implements
 		return resultSet;
 	}
 
+	/**
+	 * Member release coordinator used by cascade logic.
+	 */
+	public CascadeScheduler getScheduler() {
+		synchronized (stateLock) {
+			if (scheduler == null) {
+				scheduler = new CascadeScheduler(CascadeOptions.PARALLEL_LIMIT);
+			}
+			return scheduler;
+		}
+	}
+
+	/**
+	 * Cascade timing of this build, or null.
+	 */
+	public CascadeTimingAction getTiming() {
+		return getAction(CascadeTimingAction.class);
+	}
+
+	/**
+	 * Number of cascade build which resumed this one, or 0.
+	 */
+	public int getResumedBy() {
+		synchronized (stateLock) {
+			return resumedBy;
+		}
+	}
+
+	/**
+	 * Cascade build can be resumed from its checkpoint: only the newest build
+	 * of a resume chain, and only once.
+	 */
+	public boolean isResumable() {
+		synchronized (stateLock) {
+			if (resumedBy != 0 || resumePending) {
+				return false;
+			}
+		}
+		final CascadePlanAction plan = getPlan();
+		if (plan == null || !plan.isValid()) {
+			return false;
+		}
+		if (getAction(MemberBuildAction.class) == null) {
+			return false;
+		}
+		return !getPendingList().isEmpty();
+	}
+
+	/**
+	 * Reserve this build for a single resume request.
+	 *
+	 * @return false, when resume is already requested or done
+	 */
+	public boolean requestResume() {
+		synchronized (stateLock) {
+			if (resumedBy != 0 || resumePending) {
+				return false;
+			}
+			resumePending = true;
+			return true;
+		}
+	}
+
+	/**
+	 * Restore checkpoint of a failed cascade build into this build, and mark
+	 * the failed build as resumed by this one.
+	 */
+	public void resume(final CascadeBuild source) {
+		final Set<CascadeResult> sourceResultSet = source.getResultSet();
+		synchronized (sourceResultSet) {
+			synchronized (resultSet) {
+				resultSet.addAll(sourceResultSet);
+			}
+		}
+		final Map<String, String> sourceCommitMap = source.getCommitMap();
+		synchronized (resultSet) {
+			commitMap.putAll(sourceCommitMap);
+		}
+		checkpoint();
+		synchronized (source.stateLock) {
+			source.resumedBy = getNumber();
+			source.resumePending = false;
+		}
+		source.checkpoint();
+	}
+
 	@Override
 	public void run() {
 		execute(new CascadeExecution());
 	}
 
+	/**
+	 * Provide member release coordinator for this build execution.
+	 */
+	public void setScheduler(final CascadeScheduler scheduler) {
+		synchronized (stateLock) {
+			this.scheduler = scheduler;
+		}
+	}
+
+	/**
+	 * Cascade timing recorder used by cascade logic.
+	 */
+	public CascadeTimingAction timing() {
+		synchronized (stateLock) {
+			CascadeTimingAction timing = getTiming();
+			if (timing == null) {
+				timing = new CascadeTimingAction();
+				addAction(timing);
+			}
+			return timing;
+		}
+	}
+
 	/**
 	 * Required for legacy xstream serializer to work.
 	 */
@@ -77,6 +354,9 @@ public class CascadeBuild extends Build<CascadeProject, CascadeBuild> implements
 		if (resultSet == null) {
 			resultSet = new TreeSet<CascadeResult>();
 		}
+		if (commitMap == null) {
+			commitMap = new TreeMap<String, String>();
+		}
 	}
 
 }
@@ -18,15 +18,28 @@ import hudson.model.Result;
 import hudson.model.Actionable;
 import hudson.model.queue.QueueTaskFuture;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Parent;
 import org.jvnet.hudson.plugins.m2release.M2ReleaseBadgeAction;
 
+import com.barchart.jenkins.cascade.CascadeTimingAction.Phase;
+
 /**
  * Release build logic.
  * 
@@ -34,6 +47,12 @@ import org.jvnet.hudson.plugins.m2release.M2ReleaseBadgeAction;
  */
 public class CascadeLogic {
 
+	/**
+	 * Empty dependency list.
+	 */
+	private static final List<Dependency> NO_DEPENDENCY = Collections
+			.emptyList();
+
 	/**
 	 * Cascade build cause.
 	 */
@@ -57,9 +76,12 @@ public class CascadeLogic {
 	public static boolean hasModuleResult(
 			final BuildContext<CascadeBuild> context,
 			final ModuleName moduleName) {
-		for (final CascadeResult result : context.build().getResultSet()) {
-			if (moduleName(result.getArtifact()).equals(moduleName)) {
-				return true;
+		final Set<CascadeResult> resultSet = context.build().getResultSet();
+		synchronized (resultSet) {
+			for (final CascadeResult result : resultSet) {
+				if (moduleName(result.getArtifact()).equals(moduleName)) {
+					return true;
+				}
 			}
 		}
 		return false;
@@ -103,8 +125,11 @@ public class CascadeLogic {
 
 		context.log("Cascade result: ");
 
-		for (final CascadeResult result : context.build().getResultSet()) {
-			context.logTab(result.toString());
+		final Set<CascadeResult> resultSet = context.build().getResultSet();
+		synchronized (resultSet) {
+			for (final CascadeResult result : resultSet) {
+				context.logTab(result.toString());
+			}
 		}
 
 	}
@@ -166,6 +191,31 @@ public class CascadeLogic {
 		return list;
 	}
 
+	/**
+	 * Update parent and dependency versions in one maven invocation.
+	 */
+	public static List<Action> mavenFusedGoals(
+			final BuildContext<CascadeBuild> context, final Parent parent,
+			final List<Dependency> snapshots) {
+		final CascadeOptions cascadeOptions = context.cascadeOptions();
+		final MavenGoalsIntercept goals = new MavenGoalsIntercept();
+		final List<Action> list = new ArrayList<Action>();
+		list.add(new CheckoutSkipAction());
+		list.add(new DoCascadeBadge());
+		if (parent != null) {
+			goals.append(cascadeOptions.getMavenParentGoals());
+			goals.append(mavenParentFilter(parent));
+			list.add(new DoParentBadge());
+		}
+		if (!snapshots.isEmpty()) {
+			goals.append(cascadeOptions.getMavenDependencyGoals());
+			goals.append(mavenDependencyFilter(snapshots));
+			list.add(new DoDependencyBadge());
+		}
+		list.add(goals);
+		return list;
+	}
+
 	/**
 	 * Update parent version with lower bound of current snapshot.
 	 * 
@@ -266,35 +316,20 @@ public class CascadeLogic {
 
 		final CascadeProject cacadeProject = context.build().getProject();
 
-		final String sourceID = ProjectIdentity.familyID(cacadeProject);
+		final String familyID = ProjectIdentity.familyID(cacadeProject);
 
-		for (final MavenModuleSet project : mavenProjectList()) {
-
-			final String targetID = ProjectIdentity.familyID(project);
-
-			if (targetID == null) {
-				continue;
-			}
-
-			final boolean isFamilyMatch = sourceID.equals(targetID);
-
-			final MavenModule rootModule = project.getRootModule();
-
-			if (rootModule == null) {
-				continue;
-			}
-
-			final ModuleName targetName = rootModule.getModuleName();
-
-			final boolean isModuleMatch = sourceName.equals(targetName);
-
-			if (isFamilyMatch && isModuleMatch) {
-				return project;
-			}
-
-		}
+		return ProjectRegistry.memberProject(familyID, sourceName);
+	}
 
-		return null;
+	/**
+	 * Initial member requested release plan only.
+	 */
+	public static boolean memberPlanOnly(
+			final BuildContext<CascadeBuild> context) {
+		final CascadeBuild build = context.build();
+		final MemberBuildAction action = build
+				.getAction(MemberBuildAction.class);
+		return action.getPlanOnly();
 	}
 
 	/**
@@ -319,6 +354,27 @@ public class CascadeLogic {
 		return action.getSnapshotVersion();
 	}
 
+	/**
+	 * Record cascade build metrics, for any outcome.
+	 *
+	 * @param startTime
+	 *            cascade start, millis since epoch
+	 */
+	public static void metrics(final BuildContext<CascadeBuild> context,
+			final Result result, final long startTime) {
+		final CascadeTimingAction timing = context.build().getTiming();
+		PluginMetrics.timer("cascade_duration_seconds").observeSince(
+				startTime);
+		PluginMetrics.counter("cascade_total", "result", result.toString())
+				.increment();
+		PluginMetrics.histogram("cascade_members_released",
+				PluginMetrics.COUNT_BUCKETS).observe(
+				context.build().getReleaseCount());
+		PluginMetrics.histogram("cascade_maven_builds",
+				PluginMetrics.COUNT_BUCKETS).observe(
+				timing == null ? 0 : timing.phaseCount(Phase.SCHEDULE));
+	}
+
 	/**
 	 * Cascade entry point.
 	 */
@@ -342,8 +398,30 @@ public class CascadeLogic {
 
 		context.log("Cascade started: " + projectName);
 
+		if (context.build().getCause(CascadeResumeCause.class) != null) {
+			final CascadeBuild source = resumeSource(context);
+			if (source == null) {
+				context.logErr("Resumed cascade build not found.");
+				return Result.FAILURE;
+			}
+			if (source.getResumedBy() != 0) {
+				context.logErr("Cascade build already resumed by: #"
+						+ source.getResumedBy());
+				return Result.FAILURE;
+			}
+			context.log("Cascade resumed from: " + source.getAbsoluteUrl());
+			context.build().resume(source);
+			context.logTab("released modules: "
+					+ context.build().getResultSet().size());
+		}
+
+		/** Member layout could change since last cascade. */
+		ProjectRegistry.invalidateModules(ProjectIdentity.familyID(project));
+
 		context.log("Check-out SCM.");
+		final long checkoutTime = System.currentTimeMillis();
 		PluginScm.scmCheckout(context, project);
+		timing(context).record(projectName, Phase.SCM_CHECKOUT, checkoutTime);
 
 		final MavenModule rootModule = project.getRootModule();
 
@@ -355,28 +433,305 @@ public class CascadeLogic {
 
 		final ModuleName memberName = rootModule.getModuleName();
 
+		/**
+		 * Shared workspace check-out updates every member pom.xml, so bulk
+		 * read must follow it. Private workspace members are updated one by
+		 * one in scmRead, so their summaries are read on demand instead.
+		 */
+		if (context.layoutOptions().getUseSharedWorkspace()) {
+			context.log("Read member pom files.");
+			final long loadTime = System.currentTimeMillis();
+			final int pomCount = context.build().getPomSnapshot()
+					.load(pendingProjectList(context, project));
+			timing(context).record(CascadeTimingAction.CASCADE,
+					Phase.POM_LOAD, loadTime);
+			context.logTab("pom count: " + pomCount);
+		}
+
+		context.log("Compute release plan.");
+		final long planTime = System.currentTimeMillis();
+		final CascadePlanAction plan = CascadePlanAction.create(context,
+				memberName);
+		timing(context).record(CascadeTimingAction.CASCADE, Phase.PLAN,
+				planTime);
+		context.build().addAction(plan);
+		context.build().checkpoint();
+		plan.log(context);
+
+		/**
+		 * Private workspace members are updated only during release, so their
+		 * plan can be stale or incomplete: use it as advice. Dependency cycle
+		 * can not be released in any mode.
+		 */
+		if (!plan.isValid()) {
+			if (context.layoutOptions().getUseSharedWorkspace()
+					|| !plan.getCycleList().isEmpty()) {
+				context.logErr("Release plan is not valid.");
+				return Result.FAILURE;
+			}
+			context.log("Release plan is advisory: member workspaces are updated during release.");
+		}
+
+		if (memberPlanOnly(context)) {
+			context.log("Plan only, release is skipped.");
+			return Result.SUCCESS;
+		}
+
 		final int level = 0;
 
-		final Result result = processEntry(level + 1, context, memberName);
+		final CascadeScheduler scheduler = scheduler(context);
+
+		context.log("Release limit: " + scheduler.limit());
+
+		context.build().setScheduler(scheduler);
+
+		final Result result;
+		try {
+			if (scheduler.isParallel() && plan.isValid()) {
+				result = processLevels(context, plan);
+			} else {
+				result = processEntry(level + 1, context, memberName);
+			}
+		} finally {
+			scheduler.shutdown();
+		}
 
 		context.log("Cascade finished: " + result);
 
 		logResult(context);
 
 		context.log("Check-in SCM.");
+		final long checkinTime = System.currentTimeMillis();
 		PluginScm.scmCheckin(context, project);
+		timing(context).record(projectName, Phase.SCM_CHECKIN, checkinTime);
+
+		timing(context).log(context);
 
 		return result;
 
 	}
 
+	/**
+	 * Release concurrent plan branch, with its own buffered log.
+	 */
+	public static Result processBranch(final int level,
+			final BuildContext<CascadeBuild> context,
+			final ModuleName moduleName) throws Exception {
+
+		context.logTab("module release started: " + moduleName);
+
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final BuildContext<CascadeBuild> branch = context.branch(buffer);
+
+		try {
+			return processEntry(level, branch, moduleName);
+		} catch (final Exception e) {
+			branch.logExc(e);
+			return Result.FAILURE;
+		} finally {
+			/** Append whole branch log at once. */
+			final PrintStream logger = context.listener().getLogger();
+			synchronized (logger) {
+				logger.write(buffer.toByteArray(), 0, buffer.size());
+				logger.flush();
+			}
+		}
+
+	}
+
+	/**
+	 * Release snapshot dependencies.
+	 */
+	public static Result processDependencies(final int level,
+			final BuildContext<CascadeBuild> context,
+			final List<Dependency> snapshots) throws Exception {
+		for (final Dependency dependency : snapshots) {
+			final ModuleName dependencyName = moduleName(dependency);
+			if (isFailure(processEntry(level, context, dependencyName))) {
+				return Result.FAILURE;
+			}
+		}
+		return Result.SUCCESS;
+	}
+
 	/**
 	 * Recursively release projects.
+	 * <p>
+	 * In parallel mode, ensure each module is released only once.
 	 */
 	public static Result processEntry(final int level,
 			final BuildContext<CascadeBuild> context,
 			final ModuleName moduleName) throws Exception {
 
+		final CascadeScheduler scheduler = context.build().getScheduler();
+
+		if (!scheduler.isParallel()) {
+			return processModule(level, context, moduleName);
+		}
+
+		final FutureTask<Result> task = new FutureTask<Result>(
+				new Callable<Result>() {
+					public Result call() throws Exception {
+						return processModule(level, context, moduleName);
+					}
+				});
+
+		final Future<Result> past = scheduler.claim(moduleName, task);
+
+		try {
+
+			if (past != null) {
+				context.logTab("module release in progress: " + moduleName);
+				return past.get();
+			}
+
+			task.run();
+
+			return task.get();
+
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+
+	}
+
+	/**
+	 * Release plan level by level, members of a level concurrently.
+	 * <p>
+	 * Upstream of a level is released by lower levels, so branches never wait
+	 * on each other in the bounded pool. Upstream missing from a stale plan is
+	 * released inline by the branch which needs it.
+	 */
+	public static Result processLevels(
+			final BuildContext<CascadeBuild> context,
+			final CascadePlanAction plan) throws Exception {
+
+		final CascadeScheduler scheduler = context.build().getScheduler();
+
+		final List<List<ModuleName>> levelList = plan.moduleLevelList();
+
+		for (int index = 0; index < levelList.size(); index++) {
+
+			/** Plan root is the last level, and has level 1. */
+			final int level = levelList.size() - index;
+
+			final List<ModuleName> nameList = levelList.get(index);
+
+			context.log("Release plan level " + index + ": " + nameList.size()
+					+ " module(s).");
+
+			final List<Future<Result>> futureList = new ArrayList<Future<Result>>();
+
+			for (final ModuleName moduleName : nameList) {
+				futureList.add(scheduler.submit(new Callable<Result>() {
+					public Result call() throws Exception {
+						return processBranch(level, context, moduleName);
+					}
+				}));
+			}
+
+			/** Wait for all branches, even after a failure. */
+			Result result = Result.SUCCESS;
+			for (final Future<Result> future : futureList) {
+				try {
+					if (isFailure(future.get())) {
+						result = Result.FAILURE;
+					}
+				} catch (final ExecutionException e) {
+					context.logExc(e.getCause());
+					result = Result.FAILURE;
+				}
+			}
+
+			if (isFailure(result)) {
+				return Result.FAILURE;
+			}
+
+		}
+
+		return Result.SUCCESS;
+
+	}
+
+	/**
+	 * Update to existing releases first, then release remaining snapshot
+	 * parent and dependencies, and resolve all of them with a single update
+	 * build.
+	 * <p>
+	 * Anything left unresolved is handled by regular multi-step flow.
+	 */
+	public static Result processFused(final int level,
+			final BuildContext<CascadeBuild> context,
+			final MavenModuleSet project) throws Exception {
+
+		/** Update to next release, if present. */
+		{
+			final MavenPomSummary summary = pomSummary(context, project);
+			final Parent parent = snapshotParent(summary);
+			final List<Dependency> snapshots = summary
+					.dependencies(MATCH_SNAPSHOT);
+			if (parent == null && snapshots.isEmpty()) {
+				context.logTab("project has no snapshot parent or dependencies");
+				return Result.SUCCESS;
+			}
+			context.logTab("fused update to existing releases");
+			logDependency(context, snapshots);
+			if (isFailure(processUpdate(context, project, parent, snapshots,
+					mavenFusedGoals(context, parent, snapshots)))) {
+				return Result.FAILURE;
+			}
+		}
+
+		/** Release what is still a snapshot, then update once. */
+		{
+			final MavenPomSummary summary = pomSummary(context, project);
+			final Parent parent = snapshotParent(summary);
+			final List<Dependency> snapshots = summary
+					.dependencies(MATCH_SNAPSHOT);
+			if (parent == null && snapshots.isEmpty()) {
+				context.logTab("parent and dependencies updated");
+				scmWrite(level, context, project);
+				return Result.SUCCESS;
+			}
+			if (parent != null) {
+				context.logTab("parent needs a release: " + parent);
+				if (isFailure(processEntry(level + 1, context,
+						moduleName(parent)))) {
+					return Result.FAILURE;
+				}
+			}
+			if (!snapshots.isEmpty()) {
+				context.logTab("dependencies need release: "
+						+ snapshots.size());
+				logDependency(context, snapshots);
+				if (isFailure(processDependencies(level + 1, context,
+						snapshots))) {
+					return Result.FAILURE;
+				}
+			}
+			context.logTab("fused update of parent and dependencies");
+			if (isFailure(processUpdate(context, project, parent, snapshots,
+					mavenFusedGoals(context, parent, snapshots)))) {
+				return Result.FAILURE;
+			}
+		}
+
+		scmWrite(level, context, project);
+
+		return Result.SUCCESS;
+
+	}
+
+	/**
+	 * Release member project and its snapshot parent and dependencies.
+	 */
+	public static Result processModule(final int level,
+			final BuildContext<CascadeBuild> context,
+			final ModuleName moduleName) throws Exception {
+
 		context.log("---------------------");
 		context.log("Level: " + level);
 		context.log("Module: " + moduleName);
@@ -401,7 +756,7 @@ public class CascadeLogic {
 		scmRead(level, context, project);
 
 		context.log("Verify project.");
-		if (isRelease(mavenModel(project))) {
+		if (pomSummary(context, project).isRelease()) {
 			context.logErr("project is a release");
 			context.logErr("this is likely due to failed release:perform phase");
 			context.logErr("please update project version to the appropriate snapshot");
@@ -414,12 +769,19 @@ public class CascadeLogic {
 			context.logTab("project is a snapshot");
 		}
 
+		if (context.cascadeOptions().getShouldFuseUpdates()) {
+			context.log("Process fused update.");
+			if (isFailure(processFused(level, context, project))) {
+				return Result.FAILURE;
+			}
+		}
+
 		context.log("Process parent.");
 		PARENT: {
 
 			/** Update to next release, if present. */
 			{
-				final Parent parent = mavenParent(project);
+				final Parent parent = pomSummary(context, project).getParent();
 				if (parent == null) {
 					context.logTab("project has no parent");
 					break PARENT;
@@ -429,16 +791,16 @@ public class CascadeLogic {
 					break PARENT;
 				}
 				context.logTab("parent needs an update: " + parent);
-				if (isFailure(processMaven(context, project,
-						mavenParentGoals(context, mavenParentFilter(parent)),
-						true))) {
+				if (isFailure(processUpdate(context, project, parent,
+						NO_DEPENDENCY,
+						mavenParentGoals(context, mavenParentFilter(parent))))) {
 					return Result.FAILURE;
 				}
 			}
 
 			/** Need to release a parent, do it now. */
 			{
-				final Parent parent = mavenParent(project);
+				final Parent parent = pomSummary(context, project).getParent();
 				if (isRelease(parent)) {
 					context.logTab("parent updated: " + parent);
 					scmWrite(level, context, project);
@@ -453,23 +815,23 @@ public class CascadeLogic {
 
 			/** Refresh parent after the release. */
 			{
-				final Parent parent = mavenParent(project);
+				final Parent parent = pomSummary(context, project).getParent();
 				if (isRelease(parent)) {
 					context.logTab("parent refreshed: " + parent);
 					scmWrite(level, context, project);
 					break PARENT;
 				}
 				context.logTab("parent needs a refresh: " + parent);
-				if (isFailure(processMaven(context, project,
-						mavenParentGoals(context, mavenParentFilter(parent)),
-						true))) {
+				if (isFailure(processUpdate(context, project, parent,
+						NO_DEPENDENCY,
+						mavenParentGoals(context, mavenParentFilter(parent))))) {
 					return Result.FAILURE;
 				}
 			}
 
 			/** Verify parent version after release/update. */
 			{
-				final Parent parent = mavenParent(project);
+				final Parent parent = pomSummary(context, project).getParent();
 				if (isRelease(parent)) {
 					context.logTab("parent verified: " + parent);
 					scmWrite(level, context, project);
@@ -486,27 +848,29 @@ public class CascadeLogic {
 
 			/** Dependency update. */
 			{
-				final List<Dependency> snapshots = mavenDependencies(project,
-						MATCH_SNAPSHOT);
+				final List<Dependency> snapshots = pomSummary(context,
+						project).dependencies(MATCH_SNAPSHOT);
 				if (snapshots.isEmpty()) {
 					context.logTab("project has no snapshot dependencies");
 					break DEPENDENCY;
 				}
 				context.logTab("dependencies need update: " + snapshots.size());
 				logDependency(context, snapshots);
-				if (isFailure(processMaven(
+				if (isFailure(processUpdate(
 						context,
 						project,
+						null,
+						snapshots,
 						mavenDependencyGoals(context,
-								mavenDependencyFilter(snapshots)), true))) {
+								mavenDependencyFilter(snapshots))))) {
 					return Result.FAILURE;
 				}
 			}
 
 			/** Dependency release. */
 			{
-				final List<Dependency> snapshots = mavenDependencies(project,
-						MATCH_SNAPSHOT);
+				final List<Dependency> snapshots = pomSummary(context,
+						project).dependencies(MATCH_SNAPSHOT);
 				if (snapshots.isEmpty()) {
 					context.logTab("dependencies are updated");
 					scmWrite(level, context, project);
@@ -514,19 +878,16 @@ public class CascadeLogic {
 				}
 				scmWrite(level, context, project);
 				context.logTab("dependencies need release: " + snapshots.size());
-				for (final Dependency dependency : snapshots) {
-					final ModuleName dependencyName = moduleName(dependency);
-					if (isFailure(processEntry(level + 1, context,
-							dependencyName))) {
-						return Result.FAILURE;
-					}
+				if (isFailure(processDependencies(level + 1, context,
+						snapshots))) {
+					return Result.FAILURE;
 				}
 			}
 
 			/** Dependency refresh. */
 			{
-				final List<Dependency> snapshots = mavenDependencies(project,
-						MATCH_SNAPSHOT);
+				final List<Dependency> snapshots = pomSummary(context,
+						project).dependencies(MATCH_SNAPSHOT);
 				if (snapshots.isEmpty()) {
 					context.logTab("dependencies are released");
 					scmWrite(level, context, project);
@@ -534,19 +895,21 @@ public class CascadeLogic {
 				}
 				context.logTab("dependencies need refresh: " + snapshots.size());
 				logDependency(context, snapshots);
-				if (isFailure(processMaven(
+				if (isFailure(processUpdate(
 						context,
 						project,
+						null,
+						snapshots,
 						mavenDependencyGoals(context,
-								mavenDependencyFilter(snapshots)), true))) {
+								mavenDependencyFilter(snapshots))))) {
 					return Result.FAILURE;
 				}
 			}
 
 			/** Verify dependency. */
 			{
-				final List<Dependency> snapshots = mavenDependencies(project,
-						MATCH_SNAPSHOT);
+				final List<Dependency> snapshots = pomSummary(context,
+						project).dependencies(MATCH_SNAPSHOT);
 				if (snapshots.isEmpty()) {
 					context.logTab("dependencies are verified");
 					scmWrite(level, context, project);
@@ -561,9 +924,20 @@ public class CascadeLogic {
 		}
 
 		context.log("Release project.");
-		if (isFailure(processMaven(context, project,
-				mavenReleaseGoals(context), true))) {
-			return Result.FAILURE;
+		final Lock remoteLock = remoteLock(context, project);
+		remoteLock.lock();
+		try {
+			/** Release pushes, so merge concurrent releases first. */
+			if (context.build().getScheduler().isParallel()) {
+				context.logTab("scm: merge concurrent releases");
+				scmRead(level, context, project);
+			}
+			if (isFailure(processMaven(context, project,
+					mavenReleaseGoals(context), true))) {
+				return Result.FAILURE;
+			}
+		} finally {
+			remoteLock.unlock();
 		}
 
 		context.log("Update after release.");
@@ -577,6 +951,40 @@ public class CascadeLogic {
 
 	}
 
+	/**
+	 * Family members which are not released yet, such as by a resumed
+	 * cascade.
+	 */
+	public static List<MavenModuleSet> pendingProjectList(
+			final BuildContext<CascadeBuild> context,
+			final MavenModuleSet project) {
+		final List<MavenModuleSet> projectList = new ArrayList<MavenModuleSet>();
+		for (final MavenModuleSet member : ProjectIdentity
+				.memberProjectList(ProjectIdentity.familyID(project))) {
+			final MavenModule module = member.getRootModule();
+			if (module != null
+					&& hasModuleResult(context, module.getModuleName())) {
+				continue;
+			}
+			projectList.add(member);
+		}
+		return projectList;
+	}
+
+	/**
+	 * Current pom.xml summary of a member project.
+	 */
+	public static MavenPomSummary pomSummary(
+			final BuildContext<CascadeBuild> context,
+			final MavenModuleSet project) throws Exception {
+		final long time = System.currentTimeMillis();
+		try {
+			return context.build().getPomSnapshot().summary(project);
+		} finally {
+			timing(context).count(project.getName(), Phase.POM_READ, time);
+		}
+	}
+
 	/**
 	 * Build maven module.
 	 */
@@ -592,9 +1000,172 @@ public class CascadeLogic {
 
 		final MemberBuildCause cause = cascadeCause(context);
 
+		final CascadeScheduler scheduler = context.build().getScheduler();
+
+		final long permitTime = System.currentTimeMillis();
+		scheduler.acquire();
+		timing(context).record(project.getName(), Phase.PERMIT, permitTime);
+		try {
+			return scheduleMaven(context, project, actionList, isBlocking,
+					cause);
+		} finally {
+			scheduler.release();
+		}
+
+	}
+
+	/**
+	 * Update parent and dependency versions in pom.xml.
+	 * <p>
+	 * Versions released by this cascade are rewritten in place, maven update
+	 * build is used only for versions which remain unresolved.
+	 */
+	public static Result processUpdate(
+			final BuildContext<CascadeBuild> context,
+			final MavenModuleSet project, final Parent parent,
+			final List<Dependency> snapshots, final List<Action> actionList)
+			throws Exception {
+
+		final Map<String, String> versionMap = releaseVersionMap(context);
+
+		final FilePath pomFile = mavenPomFile(project);
+
+		if (!versionMap.isEmpty() && pomFile != null) {
+
+			/** Limit rewrite to requested artifacts. */
+			final Map<String, String> updateMap = new HashMap<String, String>();
+			if (parent != null) {
+				final String key = parent.getGroupId() + ":"
+						+ parent.getArtifactId();
+				if (versionMap.containsKey(key)) {
+					updateMap.put(key, versionMap.get(key));
+				}
+			}
+			for (final Dependency dependency : snapshots) {
+				final String key = dependency.getGroupId() + ":"
+						+ dependency.getArtifactId();
+				if (versionMap.containsKey(key)) {
+					updateMap.put(key, versionMap.get(key));
+				}
+			}
+
+			if (!updateMap.isEmpty()) {
+				final long rewriteTime = System.currentTimeMillis();
+				final List<String> changeList = MavenPomRewriter.rewrite(
+						pomFile, updateMap);
+				timing(context).record(project.getName(), Phase.POM_WRITE,
+						rewriteTime);
+				context.build().getPomSnapshot().invalidate(project);
+				for (final String change : changeList) {
+					context.logTab("rewrite: " + change);
+				}
+			}
+
+			if (isResolved(context, project, parent, snapshots)) {
+				context.logTab("versions resolved w/o maven build");
+				return Result.SUCCESS;
+			}
+
+		}
+
+		return processMaven(context, project, actionList, true);
+
+	}
+
+	/**
+	 * Release versions of artifacts released in this cascade.
+	 * 
+	 * @return [ groupId:artifactId : release version ]
+	 */
+	public static Map<String, String> releaseVersionMap(
+			final BuildContext<CascadeBuild> context) {
+		final Map<String, String> versionMap = new HashMap<String, String>();
+		final Set<CascadeResult> resultSet = context.build().getResultSet();
+		synchronized (resultSet) {
+			for (final CascadeResult result : resultSet) {
+				final Artifact artifact = result.getArtifact();
+				versionMap.put(
+						artifact.getGroupId() + ":" + artifact.getArtifactId(),
+						artifact.getVersion());
+			}
+		}
+		return versionMap;
+	}
+
+	/**
+	 * Verify that parent and dependencies are no longer snapshots.
+	 */
+	public static boolean isResolved(final BuildContext<CascadeBuild> context,
+			final MavenModuleSet project, final Parent parent,
+			final List<Dependency> snapshots) throws Exception {
+
+		final MavenPomSummary summary = pomSummary(context, project);
+
+		if (parent != null && summary.getParent() != null
+				&& isSnapshot(summary.getParent())) {
+			return false;
+		}
+
+		final Set<ModuleName> nameSet = new HashSet<ModuleName>();
+		for (final Dependency dependency : snapshots) {
+			nameSet.add(moduleName(dependency));
+		}
+		for (final Dependency dependency : summary
+				.dependencies(MATCH_SNAPSHOT)) {
+			if (nameSet.contains(moduleName(dependency))) {
+				return false;
+			}
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Lock which serializes merge and push to project remote branch.
+	 */
+	public static Lock remoteLock(final BuildContext<CascadeBuild> context,
+			final MavenModuleSet project) {
+		return context.build().getScheduler()
+				.remoteLock(PluginScm.remoteKey(project));
+	}
+
+	/**
+	 * Failed cascade build resumed by this build, or null.
+	 */
+	public static CascadeBuild resumeSource(
+			final BuildContext<CascadeBuild> context) {
+		final CascadeResumeCause cause = context.build().getCause(
+				CascadeResumeCause.class);
+		if (cause == null) {
+			return null;
+		}
+		return context.build().getProject()
+				.getBuildByNumber(cause.getResumeNumber());
+	}
+
+	/**
+	 * Build maven module while holding release permit.
+	 */
+	public static Result scheduleMaven(
+			final BuildContext<CascadeBuild> context,
+			final MavenModuleSet project, final List<Action> actionList,
+			final boolean isBlocking, final MemberBuildCause cause)
+			throws Exception {
+
+		final CascadeTimingAction timing = timing(context);
+
+		final long queueTime = System.currentTimeMillis();
+
 		final QueueTaskFuture<MavenModuleSetBuild> buildFuture = project
 				.scheduleBuild2(0, cause, actionList);
 
+		timing.count(project.getName(), Phase.SCHEDULE, queueTime);
+		PluginMetrics.counter("cascade_maven_builds_total").increment();
+
+		/** Maven build can change project pom.xml. */
+		context.build().getPomSnapshot().invalidate(project);
+
 		if (buildFuture == null) {
 			context.logErr("logic error: can not schedule build");
 			return Result.FAILURE;
@@ -610,11 +1181,19 @@ public class CascadeLogic {
 		/** Block till build started. */
 		final MavenModuleSetBuild build = startFuture.get();
 
+		timing.record(project.getName(), Phase.QUEUE, queueTime);
+
 		context.logTab("console: " + build.getAbsoluteUrl() + "console");
 
+		final long buildTime = System.currentTimeMillis();
+
 		/** Block till build complete. */
 		buildFuture.get();
 
+		timing.record(project.getName(), Phase.BUILD, buildTime);
+
+		context.build().getPomSnapshot().invalidate(project);
+
 		final Result result = build.getResult();
 
 		context.logTab("result: " + result);
@@ -627,6 +1206,20 @@ public class CascadeLogic {
 
 	}
 
+	/**
+	 * Member release coordinator for cascade options.
+	 * <p>
+	 * Shared workspace members can not run maven builds concurrently.
+	 */
+	public static CascadeScheduler scheduler(
+			final BuildContext<CascadeBuild> context) {
+		if (context.layoutOptions().getUseSharedWorkspace()) {
+			return new CascadeScheduler(CascadeOptions.PARALLEL_LIMIT);
+		}
+		return new CascadeScheduler(context.cascadeOptions()
+				.getParallelLimit());
+	}
+
 	/**
 	 * Perform optional update.
 	 */
@@ -639,8 +1232,14 @@ public class CascadeLogic {
 			return;
 		}
 
+		final long time = System.currentTimeMillis();
+
 		PluginScm.scmUpdate(context, project);
 
+		timing(context).record(project.getName(), Phase.SCM_READ, time);
+
+		context.build().getPomSnapshot().invalidate(project);
+
 	}
 
 	/**
@@ -652,15 +1251,55 @@ public class CascadeLogic {
 
 		final String pattern = project.getRootPOM(null);
 
-		PluginScm.scmCommit(context, project, pattern);
+		final boolean shouldPush = context.cascadeOptions()
+				.getShouldPushUpdates();
+
+		/** Concurrent releases push to the same branch, merge them first. */
+		final boolean shouldUpdate = shouldPush
+				&& context.build().getScheduler().isParallel();
 
-		if (!context.cascadeOptions().getShouldPushUpdates()) {
+		final long time = System.currentTimeMillis();
+
+		/** Commit, optional merge and push in one remote call. */
+		final PluginScmBatch.Report report;
+		final Lock remoteLock = remoteLock(context, project);
+		if (shouldPush) {
+			remoteLock.lock();
+		}
+		try {
+			report = PluginScm.scmBatch(context, project, pattern,
+					shouldUpdate, shouldPush);
+		} finally {
+			if (shouldPush) {
+				remoteLock.unlock();
+			}
+		}
+
+		if (shouldUpdate) {
+			context.build().getPomSnapshot().invalidate(project);
+		}
+
+		if (report.getCommit() != null) {
+			context.build().checkpoint(project.getName(), report.getCommit());
+		}
+
+		timing(context).record(project.getName(), Phase.SCM_WRITE, time);
+
+		if (!shouldPush) {
 			context.logTab("scm: skip checkin till cascade finish");
-			return;
 		}
 
-		PluginScm.scmCheckin(context, project);
+	}
 
+	/**
+	 * Snapshot parent of a member, or null.
+	 */
+	public static Parent snapshotParent(final MavenPomSummary summary) {
+		final Parent parent = summary.getParent();
+		if (parent != null && isSnapshot(parent)) {
+			return parent;
+		}
+		return null;
 	}
 
 	/**
@@ -695,7 +1334,11 @@ public class CascadeLogic {
 
 		final CascadeResult result = new CascadeResult(artifact, buildURL);
 
-		context.build().getResultSet().add(result);
+		context.build().addResult(result);
+
+		PluginMetrics.counter("cascade_members_released_total").increment();
+
+		context.build().checkpoint();
 
 		/** Provide compatibility with m2release plugin. */
 		final String version = artifact.getVersion();
@@ -705,6 +1348,14 @@ public class CascadeLogic {
 
 	}
 
+	/**
+	 * Cascade timing recorder of the build.
+	 */
+	public static CascadeTimingAction timing(
+			final BuildContext<CascadeBuild> context) {
+		return context.build().timing();
+	}
+
 	private CascadeLogic() {
 
 	}
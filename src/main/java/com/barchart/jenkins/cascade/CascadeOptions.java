@@ -117,6 +117,11 @@ public class CascadeOptions extends AbstractDescribableImpl<CascadeOptions>
 	@Extension
 	public final static TheDescriptor META = new TheDescriptor();
 
+	/**
+	 * Default number of concurrent member releases.
+	 */
+	public static final int PARALLEL_LIMIT = 1;
+
 	/**
 	 * Collect fields of this bean as named JSON object.
 	 */
@@ -129,6 +134,9 @@ public class CascadeOptions extends AbstractDescribableImpl<CascadeOptions>
 	private String mavenReleaseGoals = MAVEN_RELEASE_GOALS;
 	private String mavenValidateGoals = MAVEN_VALIDATE_GOALS;
 
+	private int parallelLimit = PARALLEL_LIMIT;
+
+	private boolean shouldFuseUpdates = false;
 	private boolean shouldLogActions = false;
 	private boolean shouldLogDependency = false;
 	private boolean shouldPushUpdates = false;
@@ -147,7 +155,10 @@ public class CascadeOptions extends AbstractDescribableImpl<CascadeOptions>
 			//
 			final boolean shouldLogActions, //
 			final boolean shouldLogDependency, //
-			final boolean shouldPushUpdates //
+			final boolean shouldPushUpdates, //
+			final boolean shouldFuseUpdates, //
+			//
+			final int parallelLimit //
 	//
 	) {
 
@@ -160,6 +171,9 @@ public class CascadeOptions extends AbstractDescribableImpl<CascadeOptions>
 		this.shouldLogActions = shouldLogActions;
 		this.shouldLogDependency = shouldLogDependency;
 		this.shouldPushUpdates = shouldPushUpdates;
+		this.shouldFuseUpdates = shouldFuseUpdates;
+
+		this.parallelLimit = parallelLimit;
 
 	}
 
@@ -193,6 +207,23 @@ public class CascadeOptions extends AbstractDescribableImpl<CascadeOptions>
 		return mavenValidateGoals;
 	}
 
+	/**
+	 * Maximum number of member releases running concurrently.
+	 */
+	@Jelly
+	public int getParallelLimit() {
+		return Math.max(PARALLEL_LIMIT, parallelLimit);
+	}
+
+	/**
+	 * Release snapshot upstream first, then update parent and dependency
+	 * versions in a single maven invocation.
+	 */
+	@Jelly
+	public boolean getShouldFuseUpdates() {
+		return shouldFuseUpdates;
+	}
+
 	@Jelly
 	public boolean getShouldLogActions() {
 		return shouldLogActions;
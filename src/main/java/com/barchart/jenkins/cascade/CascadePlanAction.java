@@ -0,0 +1,346 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import static com.barchart.jenkins.cascade.PluginUtilities.*;
+import hudson.maven.ModuleName;
+import hudson.maven.MavenModuleSet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Parent;
+
+/**
+ * Cascade release plan, computed before any maven build is scheduled.
+ * <p>
+ * Contains members which need a release, grouped in levels: members of a level
+ * depend only on members of lower levels. Members released by a resumed
+ * cascade are listed separately.
+ *
+ * @author Andrei Pozolotin
+ */
+public class CascadePlanAction extends AbstractAction {
+
+	/**
+	 * Depth first traversal state.
+	 */
+	private static enum Mark {
+		/** Module is on current traversal path. */
+		VISIT, //
+		/** Module and its upstream are resolved. */
+		DONE, //
+	}
+
+	/**
+	 * Source of member pom.xml summaries.
+	 */
+	public static interface MemberSource {
+		/**
+		 * @return module is already released, such as by a resumed cascade
+		 */
+		boolean isReleased(ModuleName moduleName);
+
+		/**
+		 * @return member pom summary, or null for non-member module
+		 * @throws IOException
+		 *             when member pom.xml can not be read
+		 */
+		MavenPomSummary summary(ModuleName moduleName) throws Exception;
+	}
+
+	/**
+	 * Build release plan starting from a member module.
+	 */
+	public static CascadePlanAction create(
+			final BuildContext<CascadeBuild> context,
+			final ModuleName rootName) throws Exception {
+
+		final MemberSource source = new MemberSource() {
+			public boolean isReleased(final ModuleName moduleName) {
+				return CascadeLogic.hasModuleResult(context, moduleName);
+			}
+
+			public MavenPomSummary summary(final ModuleName moduleName)
+					throws Exception {
+				final MavenModuleSet project = CascadeLogic.memberProject(
+						context, moduleName);
+				if (project == null) {
+					return null;
+				}
+				return CascadeLogic.pomSummary(context, project);
+			}
+		};
+
+		return create(source, rootName);
+
+	}
+
+	/**
+	 * Build release plan from member summaries.
+	 */
+	public static CascadePlanAction create(final MemberSource source,
+			final ModuleName rootName) throws Exception {
+
+		final CascadePlanAction plan = new CascadePlanAction();
+
+		final Map<ModuleName, Mark> markMap = new HashMap<ModuleName, Mark>();
+		final Map<ModuleName, Integer> levelMap = new HashMap<ModuleName, Integer>();
+		final List<ModuleName> path = new ArrayList<ModuleName>();
+
+		plan.visit(source, rootName, markMap, levelMap, path);
+
+		for (final Map.Entry<ModuleName, Integer> entry : levelMap.entrySet()) {
+			final int level = entry.getValue();
+			while (plan.levelList.size() <= level) {
+				plan.levelList.add(new ArrayList<String>());
+			}
+			plan.levelList.get(level).add(entry.getKey().toString());
+		}
+
+		return plan;
+
+	}
+
+	/**
+	 * Snapshot upstream modules of a member: parent and dependencies.
+	 */
+	public static Set<ModuleName> upstream(final MavenPomSummary summary) {
+		final Set<ModuleName> nameSet = new LinkedHashSet<ModuleName>();
+		final Parent parent = summary.getParent();
+		if (parent != null && isSnapshot(parent)) {
+			nameSet.add(moduleName(parent));
+		}
+		for (final Dependency dependency : summary
+				.dependencies(MATCH_SNAPSHOT)) {
+			nameSet.add(moduleName(dependency));
+		}
+		return nameSet;
+	}
+
+	/**
+	 * Module path forming a dependency cycle, or empty.
+	 */
+	private final List<String> cycleList = new ArrayList<String>();
+
+	/**
+	 * Modules to release, per level.
+	 */
+	private final List<List<String>> levelList = new ArrayList<List<String>>();
+
+	/**
+	 * Snapshot modules which are not members of the family.
+	 */
+	private final List<String> missingList = new ArrayList<String>();
+
+	/**
+	 * Topologically sorted modules to release.
+	 */
+	private final List<String> orderList = new ArrayList<String>();
+
+	/**
+	 * Modules already released, such as by a resumed cascade.
+	 */
+	private List<String> releasedList = new ArrayList<String>();
+
+	/**
+	 * Members with pom.xml which can not be read, such as without workspace.
+	 */
+	private List<String> unreadList = new ArrayList<String>();
+
+	public CascadePlanAction() {
+	}
+
+	/**
+	 * Module path forming a dependency cycle, or empty.
+	 */
+	@Jelly
+	public List<String> getCycleList() {
+		return cycleList;
+	}
+
+	/**
+	 * Modules to release, per level.
+	 */
+	@Jelly
+	public List<List<String>> getLevelList() {
+		return levelList;
+	}
+
+	/**
+	 * Snapshot modules which are not members of the family.
+	 */
+	@Jelly
+	public List<String> getMissingList() {
+		return missingList;
+	}
+
+	/**
+	 * Topologically sorted modules to release.
+	 */
+	@Jelly
+	public List<String> getOrderList() {
+		return orderList;
+	}
+
+	/**
+	 * Modules already released, such as by a resumed cascade.
+	 */
+	@Jelly
+	public List<String> getReleasedList() {
+		return releasedList;
+	}
+
+	/**
+	 * Members with pom.xml which can not be read, such as without workspace.
+	 */
+	@Jelly
+	public List<String> getUnreadList() {
+		return unreadList;
+	}
+
+	/**
+	 * Plan can be executed.
+	 */
+	@Jelly
+	public boolean isValid() {
+		return cycleList.isEmpty() && missingList.isEmpty()
+				&& unreadList.isEmpty();
+	}
+
+	/**
+	 * Show plan in the build log.
+	 */
+	public void log(final BuildLogger logger) {
+		logger.log("Release plan: " + orderList.size() + " module(s) in "
+				+ levelList.size() + " level(s).");
+		for (int index = 0; index < levelList.size(); index++) {
+			logger.logTab("level " + index + ": " + levelList.get(index));
+		}
+		if (!releasedList.isEmpty()) {
+			logger.logTab("released: " + releasedList);
+		}
+		if (!cycleList.isEmpty()) {
+			logger.logErr("dependency cycle: " + cycleList);
+		}
+		if (!missingList.isEmpty()) {
+			logger.logErr("not cascade members: " + missingList);
+		}
+		if (!unreadList.isEmpty()) {
+			logger.logErr("members not read: " + unreadList);
+		}
+	}
+
+	/**
+	 * Modules to release, per level, as module names.
+	 */
+	public List<List<ModuleName>> moduleLevelList() {
+		final List<List<ModuleName>> moduleLevelList = new ArrayList<List<ModuleName>>();
+		for (final List<String> level : levelList) {
+			final List<ModuleName> nameList = new ArrayList<ModuleName>();
+			for (final String name : level) {
+				final int index = name.indexOf(':');
+				nameList.add(new ModuleName(name.substring(0, index), name
+						.substring(index + 1)));
+			}
+			moduleLevelList.add(nameList);
+		}
+		return moduleLevelList;
+	}
+
+	/**
+	 * Plans stored by older builds have no released and unread lists.
+	 */
+	protected Object readResolve() {
+		if (releasedList == null) {
+			releasedList = new ArrayList<String>();
+		}
+		if (unreadList == null) {
+			unreadList = new ArrayList<String>();
+		}
+		return this;
+	}
+
+	/**
+	 * Depth first traversal, resolves upstream before downstream.
+	 *
+	 * @return module level, or -1 for released module or failure
+	 */
+	private int visit(final MemberSource source,
+			final ModuleName moduleName, final Map<ModuleName, Mark> markMap,
+			final Map<ModuleName, Integer> levelMap,
+			final List<ModuleName> path) throws Exception {
+
+		final Mark mark = markMap.get(moduleName);
+
+		if (mark == Mark.DONE) {
+			final Integer level = levelMap.get(moduleName);
+			return level == null ? -1 : level;
+		}
+
+		if (mark == Mark.VISIT) {
+			if (cycleList.isEmpty()) {
+				for (final ModuleName name : path.subList(
+						path.indexOf(moduleName), path.size())) {
+					cycleList.add(name.toString());
+				}
+				cycleList.add(moduleName.toString());
+			}
+			return -1;
+		}
+
+		/** Released module has no snapshot upstream left, skip its pom.xml. */
+		if (source.isReleased(moduleName)) {
+			markMap.put(moduleName, Mark.DONE);
+			releasedList.add(moduleName.toString());
+			return -1;
+		}
+
+		final MavenPomSummary summary;
+		try {
+			summary = source.summary(moduleName);
+		} catch (final IOException e) {
+			markMap.put(moduleName, Mark.DONE);
+			unreadList.add(moduleName.toString());
+			return -1;
+		}
+
+		if (summary == null) {
+			markMap.put(moduleName, Mark.DONE);
+			missingList.add(moduleName.toString());
+			return -1;
+		}
+
+		markMap.put(moduleName, Mark.VISIT);
+		path.add(moduleName);
+
+		int level = 0;
+
+		for (final ModuleName upstreamName : upstream(summary)) {
+			final int upstreamLevel = visit(source, upstreamName, markMap,
+					levelMap, path);
+			level = Math.max(level, upstreamLevel + 1);
+		}
+
+		path.remove(path.size() - 1);
+		markMap.put(moduleName, Mark.DONE);
+
+		levelMap.put(moduleName, level);
+		orderList.add(moduleName.toString());
+
+		return level;
+
+	}
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.model.Item;
+import hudson.model.Result;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Resume a failed cascade build from its checkpoint.
+ * <p>
+ * New cascade build inherits released members and scm commits of the failed
+ * build, and skips already released modules. Provided for every cascade build
+ * by {@link CascadeActionFactory}, shown only while resume is possible: a
+ * failed build is resumed once, later failures resume from the newest build.
+ * 
+ * @author Andrei Pozolotin
+ */
+public class CascadeResumeAction extends AbstractAction {
+
+	private final CascadeBuild build;
+
+	public CascadeResumeAction(final CascadeBuild build) {
+		super(CASCADE_RESUME_NAME, CASCADE_RESUME_ICON, CASCADE_RESUME_URL);
+		this.build = build;
+	}
+
+	/**
+	 * Start cascade build which resumes the failed one.
+	 */
+	@Jelly
+	public void doSubmit(final StaplerRequest request,
+			final StaplerResponse response) throws Exception {
+
+		final CascadeProject cascadeProject = build.getProject();
+
+		cascadeProject.checkPermission(Item.BUILD);
+
+		final MemberBuildAction memberAction = build
+				.getAction(MemberBuildAction.class);
+
+		/** Single resume, even on repeated submit. */
+		if (!isActive() || !build.requestResume()) {
+			response.sendRedirect(request.getContextPath() + '/'
+					+ build.getUrl());
+			return;
+		}
+
+		final CascadeResumeCause cause = new CascadeResumeCause(
+				build.getNumber());
+		final DoCascadeBadge badge = new DoCascadeBadge();
+
+		if (!cascadeProject.scheduleBuild(0, cause, memberAction, badge)) {
+			build.cancelResume();
+		}
+
+		response.sendRedirect(request.getContextPath() + '/'
+				+ cascadeProject.getUrl());
+
+	}
+
+	@Override
+	public String getIconFileName() {
+		return isActive() ? super.getIconFileName() : null;
+	}
+
+	@Override
+	public String getUrlName() {
+		return isActive() ? super.getUrlName() : null;
+	}
+
+	/**
+	 * Finished cascade build which did not succeed and can be resumed,
+	 * including builds interrupted by restart.
+	 */
+	public boolean isActive() {
+		if (build.isBuilding()) {
+			return false;
+		}
+		final Result result = build.getResult();
+		if (result == null || !result.isWorseThan(Result.SUCCESS)) {
+			return false;
+		}
+		return build.isResumable();
+	}
+
+}
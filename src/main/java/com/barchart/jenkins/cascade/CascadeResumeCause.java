@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+/**
+ * User action cause signifying a cascade build which resumes a failed one.
+ * 
+ * @author Andrei Pozolotin
+ */
+public class CascadeResumeCause extends MemberBuildCause {
+
+	/** Number of the failed cascade build. */
+	private final int resumeNumber;
+
+	public CascadeResumeCause(final int resumeNumber) {
+		this.resumeNumber = resumeNumber;
+	}
+
+	/**
+	 * Number of the failed cascade build.
+	 */
+	public int getResumeNumber() {
+		return resumeNumber;
+	}
+
+	@Override
+	public String getShortDescription() {
+		return super.getShortDescription() + ", resumed from #"
+				+ resumeNumber;
+	}
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.maven.ModuleName;
+import hudson.model.Result;
+import hudson.util.DaemonThreadFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent member release coordinator for a single cascade build.
+ * <p>
+ * Members of a release plan level run concurrently on a bounded pool, one
+ * level after another. Each module is released at most once: later requests
+ * for the same module wait on the first release. Concurrency of maven builds
+ * is limited by permits, which are held only while a maven build is running.
+ * Pushes to the same remote branch are serialized by a remote lock.
+ *
+ * @author Andrei Pozolotin
+ */
+public class CascadeScheduler {
+
+	/**
+	 * [ module name : release result ]
+	 */
+	private final ConcurrentMap<ModuleName, Future<Result>> entryMap = new ConcurrentHashMap<ModuleName, Future<Result>>();
+
+	private final ExecutorService executor;
+
+	private final int limit;
+
+	private final Semaphore permits;
+
+	/**
+	 * [ remote branch : push lock ]
+	 */
+	private final ConcurrentMap<String, Lock> remoteMap = new ConcurrentHashMap<String, Lock>();
+
+	public CascadeScheduler(final int limit) {
+		this.limit = Math.max(1, limit);
+		this.permits = new Semaphore(this.limit, true);
+		this.executor = Executors.newFixedThreadPool(this.limit,
+				new DaemonThreadFactory());
+	}
+
+	/**
+	 * Obtain maven build permit.
+	 */
+	public void acquire() throws InterruptedException {
+		permits.acquire();
+	}
+
+	/**
+	 * Register module release in current thread.
+	 *
+	 * @return null, when claim is accepted, or release result of another
+	 *         thread which claimed this module first.
+	 */
+	public Future<Result> claim(final ModuleName moduleName,
+			final FutureTask<Result> task) {
+		return entryMap.putIfAbsent(moduleName, task);
+	}
+
+	/**
+	 * Releases can run concurrently.
+	 */
+	public boolean isParallel() {
+		return limit > 1;
+	}
+
+	/**
+	 * Maximum number of concurrent maven builds.
+	 */
+	public int limit() {
+		return limit;
+	}
+
+	/**
+	 * Return maven build permit.
+	 */
+	public void release() {
+		permits.release();
+	}
+
+	/**
+	 * Lock which serializes merge and push to a remote branch.
+	 */
+	public Lock remoteLock(final String remoteKey) {
+		final Lock lock = remoteMap.get(remoteKey);
+		if (lock != null) {
+			return lock;
+		}
+		final Lock next = new ReentrantLock(true);
+		final Lock past = remoteMap.putIfAbsent(remoteKey, next);
+		return past == null ? next : past;
+	}
+
+	/**
+	 * Stop all pending work.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Run release task on the bounded pool.
+	 * <p>
+	 * Tasks must not wait on other pool tasks.
+	 */
+	public Future<Result> submit(final Callable<Result> task) {
+		return executor.submit(task);
+	}
+
+}
@@ -0,0 +1,327 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.model.Api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Cascade build timing: wall time spans of cascade phases per member
+ * project, with per-phase totals.
+ * <p>
+ * Rendered as a waterfall page, exported via remote api.
+ *
+ * @author Andrei Pozolotin
+ */
+@ExportedBean
+public class CascadeTimingAction extends AbstractAction {
+
+	/**
+	 * Timed cascade phase.
+	 */
+	public static enum Phase {
+		/** Member pom.xml bulk read. */
+		POM_LOAD, //
+		/** Member pom.xml summary access, counted only. */
+		POM_READ, //
+		/** Member pom.xml in place version rewrite. */
+		POM_WRITE, //
+		/** Release plan computation. */
+		PLAN, //
+		/** Initial member scm check-out. */
+		SCM_CHECKOUT, //
+		/** Member scm update before release. */
+		SCM_READ, //
+		/** Member scm commit and optional push. */
+		SCM_WRITE, //
+		/** Final scm check-in. */
+		SCM_CHECKIN, //
+		/** Wait for release permit. */
+		PERMIT, //
+		/** Maven build submission, counted only. */
+		SCHEDULE, //
+		/** Maven build wait in the queue. */
+		QUEUE, //
+		/** Maven build execution. */
+		BUILD, //
+	}
+
+	/**
+	 * Phase span of a project.
+	 */
+	@ExportedBean(defaultVisibility = 2)
+	public static class Span {
+
+		private final long duration;
+		private final Phase phase;
+		private final String project;
+		private final long start;
+
+		public Span(final String project, final Phase phase,
+				final long start, final long duration) {
+			this.project = project;
+			this.phase = phase;
+			this.start = start;
+			this.duration = duration;
+		}
+
+		/**
+		 * Span wall time, millis.
+		 */
+		@Exported
+		public long getDuration() {
+			return duration;
+		}
+
+		@Exported
+		public Phase getPhase() {
+			return phase;
+		}
+
+		@Exported
+		public String getProject() {
+			return project;
+		}
+
+		/**
+		 * Span start, millis since epoch.
+		 */
+		@Exported
+		public long getStart() {
+			return start;
+		}
+
+	}
+
+	/**
+	 * Phase count and total wall time of a project.
+	 */
+	@ExportedBean(defaultVisibility = 2)
+	public static class Total {
+
+		private int count;
+		private long duration;
+		private final Phase phase;
+		private final String project;
+
+		public Total(final String project, final Phase phase) {
+			this.project = project;
+			this.phase = phase;
+		}
+
+		void add(final long duration) {
+			this.count++;
+			this.duration += duration;
+		}
+
+		@Exported
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * Total wall time, millis.
+		 */
+		@Exported
+		public long getDuration() {
+			return duration;
+		}
+
+		@Exported
+		public Phase getPhase() {
+			return phase;
+		}
+
+		@Exported
+		public String getProject() {
+			return project;
+		}
+
+	}
+
+	/**
+	 * Project name for cascade wide phases.
+	 */
+	public static final String CASCADE = "(cascade)";
+
+	/**
+	 * Maximum number of stored spans; totals are always kept.
+	 */
+	public static final int LIMIT_SPAN = 10 * 1000;
+
+	/** Last span finish, millis since epoch. */
+	private long finishTime = System.currentTimeMillis();
+
+	private final List<Span> spanList = new ArrayList<Span>();
+
+	private final long startTime = System.currentTimeMillis();
+
+	/**
+	 * [ project phase : total ]
+	 */
+	private final Map<String, Total> totalMap = new TreeMap<String, Total>();
+
+	public CascadeTimingAction() {
+		super(CASCADE_TIMING_NAME, CASCADE_TIMING_ICON, CASCADE_TIMING_URL);
+	}
+
+	/**
+	 * Count phase occurrence, without a timeline span.
+	 *
+	 * @param start
+	 *            phase start, millis since epoch
+	 */
+	public synchronized void count(final String project, final Phase phase,
+			final long start) {
+		total(project, phase).add(System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Remote api support.
+	 */
+	public Api getApi() {
+		return new Api(this);
+	}
+
+	/**
+	 * Time since cascade start till last span finish, millis.
+	 */
+	@Exported
+	public synchronized long getDuration() {
+		return finishTime - startTime;
+	}
+
+	/**
+	 * Phase totals of the whole cascade.
+	 */
+	@Jelly
+	public synchronized List<Total> getPhaseList() {
+		final Map<Phase, Total> phaseMap = new TreeMap<Phase, Total>();
+		for (final Total total : totalMap.values()) {
+			Total sum = phaseMap.get(total.getPhase());
+			if (sum == null) {
+				sum = new Total(CASCADE, total.getPhase());
+				phaseMap.put(total.getPhase(), sum);
+			}
+			sum.count += total.getCount();
+			sum.duration += total.getDuration();
+		}
+		return new ArrayList<Total>(phaseMap.values());
+	}
+
+	/**
+	 * Timeline spans, in start order.
+	 */
+	@Exported
+	public synchronized List<Span> getSpanList() {
+		return new ArrayList<Span>(spanList);
+	}
+
+	/**
+	 * Cascade start, millis since epoch.
+	 */
+	@Exported
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Phase totals per project.
+	 */
+	@Exported
+	public synchronized List<Total> getTotalList() {
+		return new ArrayList<Total>(totalMap.values());
+	}
+
+	/**
+	 * Waterfall bar offset of a span, percent of cascade duration.
+	 */
+	@Jelly
+	public int left(final Span span) {
+		return percent(span.getStart() - startTime);
+	}
+
+	/**
+	 * Show phase totals in the build log.
+	 */
+	public void log(final BuildLogger logger) {
+		logger.log("Cascade timing: " + getDuration() + " ms");
+		for (final Total total : getPhaseList()) {
+			logger.logTab(total.getPhase() + ": " + total.getCount()
+					+ " time(s), " + total.getDuration() + " ms");
+		}
+	}
+
+	private int percent(final long time) {
+		final long duration = getDuration();
+		if (duration <= 0) {
+			return 0;
+		}
+		return (int) Math.min(100, time * 100 / duration);
+	}
+
+	/**
+	 * Number of phase occurrences across all projects.
+	 */
+	public synchronized int phaseCount(final Phase phase) {
+		int count = 0;
+		for (final Total total : totalMap.values()) {
+			if (total.getPhase() == phase) {
+				count += total.getCount();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Record phase span, finished now.
+	 *
+	 * @param start
+	 *            phase start, millis since epoch
+	 */
+	public synchronized void record(final String project, final Phase phase,
+			final long start) {
+		final long finish = System.currentTimeMillis();
+		final long duration = finish - start;
+		finishTime = Math.max(finishTime, finish);
+		total(project, phase).add(duration);
+		if (spanList.size() < LIMIT_SPAN) {
+			int index = spanList.size();
+			while (index > 0 && spanList.get(index - 1).getStart() > start) {
+				index--;
+			}
+			spanList.add(index, new Span(project, phase, start, duration));
+		}
+	}
+
+	private Total total(final String project, final Phase phase) {
+		final String key = project + " " + phase;
+		Total total = totalMap.get(key);
+		if (total == null) {
+			total = new Total(project, phase);
+			totalMap.put(key, total);
+		}
+		return total;
+	}
+
+	/**
+	 * Waterfall bar width of a span, percent of cascade duration.
+	 */
+	@Jelly
+	public int width(final Span span) {
+		return Math.max(1, percent(span.getDuration()));
+	}
+
+}
@@ -71,13 +71,21 @@ public class CheckoutStrategySCM extends SCMCheckoutStrategy implements
 
 		context.log("Cascade family project.");
 
+		final MavenModuleSet layoutProject = identity.layoutProject();
+
+		final boolean isShared = layoutProject != null
+				&& context.layoutOptions().getUseSharedWorkspace();
+
 		if (CheckoutSkipAction.hasAction(context.build())) {
 			context.log("Found " + CheckoutSkipAction.class.getSimpleName());
 			context.log("Do not to perform checkout.");
+			if (isShared) {
+				context.log("Wait for checkout in progress.");
+				checkoutLocked(context, identity, execution, false);
+			}
 			return;
 		}
 
-		final MavenModuleSet layoutProject = identity.layoutProject();
 		if (layoutProject == null) {
 			context.log("No layout project.");
 			context.log("Perform default checkout.");
@@ -85,12 +93,10 @@ public class CheckoutStrategySCM extends SCMCheckoutStrategy implements
 			return;
 		}
 
-		if (context.layoutOptions().getUseSharedWorkspace()) {
+		if (isShared) {
 			context.log("Using shared workspace.");
 			context.log("Perform synchronized checkout.");
-			synchronized (layoutProject) {
-				super.checkout(execution);
-			}
+			checkoutLocked(context, identity, execution, true);
 			return;
 		} else {
 			context.log("Using individual workspace.");
@@ -101,6 +107,39 @@ public class CheckoutStrategySCM extends SCMCheckoutStrategy implements
 
 	}
 
+	/**
+	 * Perform checkout under family workspace lock.
+	 * 
+	 * @param isExclusive
+	 *            true to checkout, false to wait for other checkout only
+	 */
+	@SuppressWarnings("rawtypes")
+	protected void checkoutLocked(final BuildContext context,
+			final ProjectIdentity identity,
+			final AbstractBuildExecution execution, final boolean isExclusive)
+			throws IOException, InterruptedException {
+
+		final WorkspaceLock lock = WorkspaceLock.ensure(identity
+				.getFamilyID());
+
+		final long wait = lock.acquire(isExclusive);
+		final long acquireTime = System.currentTimeMillis();
+
+		context.logTab("lock wait: " + wait + " ms");
+
+		long hold = 0;
+		try {
+			if (isExclusive) {
+				super.checkout(execution);
+			}
+		} finally {
+			hold = lock.release(isExclusive, acquireTime);
+		}
+
+		context.logTab("lock hold: " + hold + " ms");
+
+	}
+
 	@Override
 	public TheDescriptor getDescriptor() {
 		return META;
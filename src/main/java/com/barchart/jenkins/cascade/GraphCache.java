@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.plugins.depgraph_view.model.graph.Edge;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cascade family graph cache: member edges and rendered graph images.
+ * <p>
+ * Cache is discarded as a whole when family changes; version tracks the
+ * discards and is used for image entity tags. Last good images are kept
+ * across discards as a fallback for slow rendering.
+ *
+ * @author Andrei Pozolotin
+ */
+public class GraphCache {
+
+	/**
+	 * Maximum number of cached images per family.
+	 */
+	public static final int CAPACITY = 100;
+
+	/***
+	 * [ familyID : graph cache ]
+	 */
+	private static final ConcurrentMap<String, GraphCache> cacheMap = new ConcurrentHashMap<String, GraphCache>();
+
+	/**
+	 * Produce existing or create new family graph cache.
+	 */
+	public static GraphCache ensure(final String familyID) {
+		GraphCache cache = cacheMap.get(familyID);
+		if (cache == null) {
+			cache = new GraphCache(familyID);
+			cacheMap.putIfAbsent(familyID, cache);
+			cache = cacheMap.get(familyID);
+		}
+		return cache;
+	}
+
+	/**
+	 * Discard cached graph of a family.
+	 */
+	public static void invalidate(final String familyID) {
+		if (familyID == null) {
+			return;
+		}
+		final GraphCache cache = cacheMap.get(familyID);
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Discard cached graphs of all families.
+	 */
+	public static void invalidateAll() {
+		for (final GraphCache cache : cacheMap.values()) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * [ project name : incident edges ]
+	 */
+	private final Map<String, List<Edge>> edgeMap = new HashMap<String, List<Edge>>();
+
+	private final String familyID;
+
+	/**
+	 * [ image key : image bytes ]
+	 */
+	private final Map<String, byte[]> imageMap = new LinkedHashMap<String, byte[]>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<String, byte[]> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+
+	/**
+	 * [ image key : last good image ] survives cache discards.
+	 */
+	private final Map<String, byte[]> lastMap = new LinkedHashMap<String, byte[]>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<String, byte[]> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+
+	/** Starts from clock, so entity tags differ across restarts. */
+	private long version = System.currentTimeMillis();
+
+	public GraphCache(final String familyID) {
+		this.familyID = familyID;
+	}
+
+	/**
+	 * Discard all entries, advance version.
+	 */
+	public synchronized void clear() {
+		edgeMap.clear();
+		lastMap.putAll(imageMap);
+		imageMap.clear();
+		version++;
+	}
+
+	/**
+	 * Find cached incident edges of a project, or null.
+	 */
+	public synchronized List<Edge> edges(final String projectName) {
+		return edgeMap.get(projectName);
+	}
+
+	/**
+	 * Entity tag of an image for current cache version.
+	 */
+	public synchronized String etag(final String key) {
+		return "\"" + version + "-" + Integer.toHexString(key.hashCode())
+				+ "\"";
+	}
+
+	/**
+	 * Cascade family served by this cache.
+	 */
+	public String familyID() {
+		return familyID;
+	}
+
+	/**
+	 * Find cached image, or null.
+	 */
+	public synchronized byte[] image(final String key) {
+		return imageMap.get(key);
+	}
+
+	/**
+	 * Find last good image from current or past cache version, or null.
+	 */
+	public synchronized byte[] lastImage(final String key) {
+		final byte[] image = imageMap.get(key);
+		if (image != null) {
+			return image;
+		}
+		return lastMap.get(key);
+	}
+
+	/**
+	 * Store family edges computed for a cache version.
+	 * 
+	 * @param familyMap
+	 *            [ project name : incident edges ]
+	 */
+	public synchronized void putEdges(final long version,
+			final Map<String, List<Edge>> familyMap) {
+		if (this.version != version) {
+			return;
+		}
+		for (final Map.Entry<String, List<Edge>> entry : familyMap.entrySet()) {
+			edgeMap.put(entry.getKey(),
+					Collections.unmodifiableList(entry.getValue()));
+		}
+	}
+
+	/**
+	 * Store image rendered for a cache version.
+	 */
+	public synchronized void putImage(final String key, final long version,
+			final byte[] image) {
+		if (this.version == version) {
+			imageMap.put(key, image);
+		} else {
+			lastMap.put(key, image);
+		}
+	}
+
+	/**
+	 * Current cache version.
+	 */
+	public synchronized long version() {
+		return version;
+	}
+
+}
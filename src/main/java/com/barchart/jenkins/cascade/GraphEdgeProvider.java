@@ -14,8 +14,12 @@ import hudson.model.AbstractProject;
 import hudson.plugins.depgraph_view.model.graph.Edge;
 import hudson.plugins.depgraph_view.model.graph.EdgeProvider;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.inject.Inject;
@@ -25,6 +29,9 @@ import org.apache.maven.model.Parent;
 
 /**
  * Provide cascade project graph dependency edge discovery.
+ * <p>
+ * Edges of a whole family are computed at once and cached in
+ * {@link GraphCache}, so graph cost is linear in members and edges.
  * 
  * @author Stefan Wolf
  * @author Andrei Pozolotin
@@ -34,91 +41,161 @@ public class GraphEdgeProvider implements EdgeProvider {
 	protected final static Logger log = Logger
 			.getLogger(GraphEdgeProvider.class.getName());
 
-	@Inject
-	public GraphEdgeProvider() {
-		// log.info("### GraphEdgeProvider");
-	}
+	/**
+	 * Resolve member parent and dependencies into edges.
+	 */
+	public static void edgeList(
+			final Map<ModuleName, MavenModuleSet> moduleIndex,
+			final MavenModuleSet currentProject,
+			final MavenPomSummary summary, final List<Edge> edgeList) {
 
-	public Iterable<Edge> getEdgesIncidentWith(
-			final AbstractProject<?, ?> project) {
+		/** Process parent. */
+		final Parent parent = summary.getParent();
+		if (parent != null) {
 
-		final List<Edge> edgeList = new ArrayList<Edge>();
+			final MavenModuleSet parentProject = moduleIndex
+					.get(moduleName(parent));
 
-		try {
+			/** Parent is not part of cascade. */
+			if (parentProject != null) {
 
-			final ProjectIdentity identity = ProjectIdentity.identity(project);
+				final GraphEdge edge = new GraphEdge(parentProject,
+						currentProject);
+
+				if (isSnapshot(parent)) {
+					edge.setColor("red");
+				} else {
+					edge.setColor("chocolate");
+				}
 
-			/** Cascade projects have identity. */
-			if (identity == null) {
-				return edgeList;
+				edgeList.add(edge);
 			}
 
-			/** Interested in member projects only. */
-			if (identity.role() != ProjectRole.MEMBER) {
-				return edgeList;
+		}
+
+		/** Process dependencies. */
+		final List<Dependency> dependencyList = summary
+				.dependencies(MATCH_ANY);
+
+		for (final Dependency dependency : dependencyList) {
+
+			final MavenModuleSet dependencyProject = moduleIndex
+					.get(moduleName(dependency));
+
+			/** Dependency is not part of cascade. */
+			if (dependencyProject == null) {
+				continue;
 			}
 
-			final MavenModuleSet currentProject = (MavenModuleSet) project;
+			final GraphEdge edge = new GraphEdge(dependencyProject,
+					currentProject);
 
-			/** Process parent. */
-			final Parent parent = mavenParent(currentProject);
-			if (parent != null) {
+			if (isSnapshot(dependency)) {
+				edge.setColor("blue");
+			} else {
+				edge.setColor("forestgreen");
+			}
 
-				final ModuleName parentName = moduleName(parent);
+			edgeList.add(edge);
 
-				final MavenModuleSet parentProject = identity
-						.memberProject(parentName);
+		}
 
-				/** Parent is not part of cascade. */
-				if (parentProject != null) {
+	}
 
-					final GraphEdge edge = new GraphEdge(parentProject,
-							currentProject);
+	/**
+	 * Compute incident edges of all family members: single pom.xml read per
+	 * member, single index lookup per reference.
+	 * 
+	 * @return [ project full name : incident edges ]
+	 */
+	public static Map<String, List<Edge>> familyEdges(final String familyID) {
 
-					if (isSnapshot(parent)) {
-						edge.setColor("red");
-					} else {
-						edge.setColor("chocolate");
-					}
+		final List<MavenModuleSet> memberList = ProjectIdentity
+				.memberProjectList(familyID);
 
-					edgeList.add(edge);
-				}
+		final Map<ModuleName, MavenModuleSet> moduleIndex = ProjectRegistry
+				.moduleIndex(familyID);
+
+		final MavenPomSnapshot snapshot = new MavenPomSnapshot();
+
+		try {
+			/** Bulk read, one remote call per node. */
+			snapshot.load(memberList);
+		} catch (final IOException e) {
+			/** Missing pom.xml fails the bulk, read members one by one. */
+			log.warning("Bulk pom read failure: " + e.getMessage());
+		}
+
+		final Map<String, List<Edge>> edgeMap = new HashMap<String, List<Edge>>();
+
+		for (final MavenModuleSet memberProject : memberList) {
 
+			final List<Edge> edgeList = new ArrayList<Edge>();
+
+			edgeMap.put(memberProject.getFullName(), edgeList);
+
+			/** Project was never built. */
+			if (mavenPomFile(memberProject) == null) {
+				continue;
 			}
 
-			/** Process dependencies. */
-			final List<Dependency> dependencyList = mavenDependencies(
-					currentProject, MATCH_ANY);
+			try {
+				final MavenPomSummary summary = snapshot.summary(memberProject);
+				edgeList(moduleIndex, memberProject, summary, edgeList);
+			} catch (final IOException e) {
+				log.warning("Member pom read failure: "
+						+ memberProject.getName() + " " + e.getMessage());
+			}
 
-			for (final Dependency dependency : dependencyList) {
+		}
 
-				final ModuleName dependencyName = moduleName(dependency);
+		return edgeMap;
 
-				final MavenModuleSet dependencyProject = identity
-						.memberProject(dependencyName);
+	}
 
-				/** Dependency is not part of cascade. */
-				if (dependencyProject == null) {
-					continue;
-				}
+	@Inject
+	public GraphEdgeProvider() {
+		// log.info("### GraphEdgeProvider");
+	}
 
-				final GraphEdge edge = new GraphEdge(dependencyProject,
-						currentProject);
+	public Iterable<Edge> getEdgesIncidentWith(
+			final AbstractProject<?, ?> project) {
 
-				if (isSnapshot(dependency)) {
-					edge.setColor("blue");
-				} else {
-					edge.setColor("forestgreen");
-				}
+		final ProjectIdentity identity = ProjectIdentity.identity(project);
 
-				edgeList.add(edge);
+		/** Cascade projects have identity. */
+		if (identity == null) {
+			return new ArrayList<Edge>();
+		}
 
-			}
+		/** Interested in member projects only. */
+		if (identity.role() != ProjectRole.MEMBER) {
+			return new ArrayList<Edge>();
+		}
+
+		final GraphCache cache = GraphCache.ensure(identity.getFamilyID());
 
-		} catch (final Exception e) {
-			e.printStackTrace();
+		final String projectName = project.getFullName();
+
+		final List<Edge> cachedList = cache.edges(projectName);
+		if (cachedList != null) {
+			return cachedList;
+		}
+
+		final long version = cache.version();
+
+		final Map<String, List<Edge>> edgeMap = familyEdges(identity
+				.getFamilyID());
+
+		List<Edge> edgeList = edgeMap.get(projectName);
+		if (edgeList == null) {
+			/** Not a registered member, remember as isolated. */
+			edgeList = Collections.emptyList();
+			edgeMap.put(projectName, edgeList);
 		}
 
+		cache.putEdges(version, edgeMap);
+
 		return edgeList;
 
 	}
@@ -21,12 +21,15 @@ import hudson.plugins.depgraph_view.model.graph.SubProjectProvider;
 import hudson.plugins.depgraph_view.model.graph.SubprojectCalculator;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import javax.servlet.ServletException;
@@ -64,6 +67,9 @@ public class GraphProjectAction extends AbstractDependencyGraphAction implements
 		this.project = project;
 	}
 
+	/**
+	 * Serve cached graph image, render on cache miss.
+	 */
 	@Jelly
 	@Override
 	public void doDynamic(final StaplerRequest req, final StaplerResponse rsp)
@@ -71,6 +77,11 @@ public class GraphProjectAction extends AbstractDependencyGraphAction implements
 
 		final String path = req.getRestOfPath();
 
+		if (!path.startsWith("/graph.") && !path.startsWith("/legend.")) {
+			rsp.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED);
+			return;
+		}
+
 		SupportedImageType imageType = null;
 		try {
 			imageType = SupportedImageType.valueOf(path.substring(
@@ -79,55 +90,49 @@ public class GraphProjectAction extends AbstractDependencyGraphAction implements
 			imageType = SupportedImageType.PNG;
 		}
 
-		final GeneratorFactory generatorFactory = new GraphGeneratorFactory();
-
-		AbstractGraphStringGenerator stringGenerator = null;
-
-		if (path.startsWith("/graph.")) {
-
-			final Set<EdgeProvider> edgeProviderSet = new HashSet<EdgeProvider>();
-			edgeProviderSet.add(new GraphEdgeProvider());
-
-			final GraphCalculator graphCalculator = new GraphCalculator(
-					edgeProviderSet);
-
-			final DependencyGraph graph = graphCalculator
-					.generateGraph(GraphCalculator
-							.abstractProjectSetToProjectNodeSet(getProjectsForDepgraph()));
+		final String familyID = ProjectIdentity.familyID(project);
 
-			final Set<SubProjectProvider> subprojectProviderSet = new HashSet<SubProjectProvider>();
-			subprojectProviderSet.add(new GraphSubProjectProvider());
+		final GraphCache cache = GraphCache.ensure(familyID == null ? ""
+				: familyID);
 
-			final SubprojectCalculator subprojCalculator = new SubprojectCalculator(
-					subprojectProviderSet);
+		final String key = project.getFullName() + path;
 
-			final ListMultimap<ProjectNode, ProjectNode> projects2Subprojects = subprojCalculator
-					.generate(graph);
+		final String etag = cache.etag(key);
 
-			stringGenerator = generatorFactory.newGenerator(graph,
-					projects2Subprojects);
+		if (etag.equals(req.getHeader("If-None-Match"))) {
+			rsp.setHeader("ETag", etag);
+			rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
 
-		} else if (path.startsWith("/legend.")) {
+		byte[] image = cache.image(key);
 
-			stringGenerator = generatorFactory.newLegendGenerator();
+		if (image == null) {
+			image = renderAsync(cache, key, path, imageType);
+		}
 
+		if (image != null) {
+			rsp.setHeader("ETag", etag);
+			rsp.setHeader("Cache-Control", "no-cache");
 		} else {
+			/** Rendering is slow, serve fallback, do not cache it. */
+			rsp.setHeader("Cache-Control", "no-store");
+			image = cache.lastImage(key);
+		}
 
-			rsp.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED);
-
+		if (image == null) {
+			if (imageType == SupportedImageType.PNG) {
+				rsp.sendRedirect2(req.getContextPath() + PLUGIN_ICON);
+			} else {
+				rsp.setHeader("Retry-After", "5");
+				rsp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			}
 			return;
 		}
 
-		final String graphString = stringGenerator.generate();
-
 		rsp.setContentType(imageType.contentType);
-		if (imageType.requiresProcessing) {
-			runDot(rsp.getOutputStream(),
-					new ByteArrayInputStream(graphString.getBytes(Charset
-							.forName("UTF-8"))), imageType.dotType);
-		} else {
-			rsp.getWriter().append(graphString).close();
-		}
+		rsp.setContentLength(image.length);
+		rsp.getOutputStream().write(image);
 
 	}
 
@@ -162,4 +167,94 @@ public class GraphProjectAction extends AbstractDependencyGraphAction implements
 		return PLUGIN_ID + "-" + super.getUrlName();
 	}
 
+	/**
+	 * Render in the pool, coalesced with concurrent requests; result is
+	 * stored in the cache even after the request stopped waiting.
+	 * 
+	 * @return image, or null when rendering is slow
+	 */
+	protected byte[] renderAsync(final GraphCache cache, final String key,
+			final String path, final SupportedImageType imageType)
+			throws IOException, InterruptedException {
+
+		final long version = cache.version();
+
+		final Callable<byte[]> callable = new Callable<byte[]>() {
+			public byte[] call() throws Exception {
+				final byte[] image = render(path, imageType);
+				cache.putImage(key, version, image);
+				return image;
+			}
+		};
+
+		final Future<byte[]> future = GraphRenderer.submit(key + "@"
+				+ version, callable);
+
+		if (future == null) {
+			return null;
+		}
+
+		return GraphRenderer.await(future, GraphRenderer.TIMEOUT);
+
+	}
+
+	/**
+	 * Generate graph or legend and render it with graphviz.
+	 */
+	protected byte[] render(final String path,
+			final SupportedImageType imageType) throws IOException {
+
+		final GeneratorFactory generatorFactory = new GraphGeneratorFactory();
+
+		final AbstractGraphStringGenerator stringGenerator;
+
+		if (path.startsWith("/graph.")) {
+
+			final Set<EdgeProvider> edgeProviderSet = new HashSet<EdgeProvider>();
+			edgeProviderSet.add(new GraphEdgeProvider());
+
+			final GraphCalculator graphCalculator = new GraphCalculator(
+					edgeProviderSet);
+
+			final DependencyGraph graph = graphCalculator
+					.generateGraph(GraphCalculator
+							.abstractProjectSetToProjectNodeSet(getProjectsForDepgraph()));
+
+			final Set<SubProjectProvider> subprojectProviderSet = new HashSet<SubProjectProvider>();
+			subprojectProviderSet.add(new GraphSubProjectProvider());
+
+			final SubprojectCalculator subprojCalculator = new SubprojectCalculator(
+					subprojectProviderSet);
+
+			final ListMultimap<ProjectNode, ProjectNode> projects2Subprojects = subprojCalculator
+					.generate(graph);
+
+			stringGenerator = generatorFactory.newGenerator(graph,
+					projects2Subprojects);
+
+		} else {
+
+			stringGenerator = generatorFactory.newLegendGenerator();
+
+		}
+
+		final byte[] graphBytes = stringGenerator.generate().getBytes(
+				Charset.forName("UTF-8"));
+
+		if (!imageType.requiresProcessing) {
+			return graphBytes;
+		}
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		final long time = System.currentTimeMillis();
+
+		runDot(output, new ByteArrayInputStream(graphBytes), imageType.dotType);
+
+		PluginMetrics.timer("cascade_graph_render_seconds").observeSince(time);
+
+		return output.toByteArray();
+
+	}
+
 }
@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.util.DaemonThreadFactory;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Bounded graphviz rendering pool.
+ * <p>
+ * Concurrent requests for the same image share one rendering task; request
+ * threads wait for the result only up to a timeout, while rendering
+ * continues in the pool.
+ *
+ * @author Andrei Pozolotin
+ */
+public class GraphRenderer {
+
+	protected final static Logger log = Logger.getLogger(GraphRenderer.class
+			.getName());
+
+	/**
+	 * Maximum number of concurrent dot processes.
+	 */
+	public static final int POOL_SIZE = 2;
+
+	/**
+	 * Maximum number of pending rendering tasks.
+	 */
+	public static final int QUEUE_SIZE = 32;
+
+	/**
+	 * Request wait time for rendering result, millis.
+	 */
+	public static final long TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+	private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+			POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(QUEUE_SIZE),
+			new DaemonThreadFactory());
+
+	static {
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * [ image key : rendering task ]
+	 */
+	private static final ConcurrentMap<String, Future<byte[]>> taskMap = new ConcurrentHashMap<String, Future<byte[]>>();
+
+	/**
+	 * Wait for rendering result.
+	 *
+	 * @return image, or null on timeout
+	 */
+	public static byte[] await(final Future<byte[]> future, final long timeout)
+			throws IOException, InterruptedException {
+		try {
+			return future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (final TimeoutException e) {
+			return null;
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Number of pending and running rendering tasks.
+	 */
+	public static int pendingCount() {
+		return taskMap.size();
+	}
+
+	/**
+	 * Discard pending tasks on plugin stop.
+	 */
+	public static void shutdown() {
+		executor.shutdownNow();
+		taskMap.clear();
+	}
+
+	/**
+	 * Join existing rendering task for the key, or start a new one.
+	 *
+	 * @return rendering task, or null when pool is saturated
+	 */
+	public static Future<byte[]> submit(final String key,
+			final Callable<byte[]> callable) {
+
+		final FutureTask<byte[]> task = new FutureTask<byte[]>(callable) {
+			@Override
+			protected void done() {
+				taskMap.remove(key, this);
+			}
+		};
+
+		final Future<byte[]> past = taskMap.putIfAbsent(key, task);
+		if (past != null) {
+			return past;
+		}
+
+		try {
+			executor.execute(task);
+		} catch (final RejectedExecutionException e) {
+			taskMap.remove(key, task);
+			log.warning("Graph rendering pool is saturated: " + key);
+			return null;
+		}
+
+		return task;
+
+	}
+
+	private GraphRenderer() {
+	}
+
+}
@@ -105,6 +105,9 @@ public class LayoutLogic implements PluginConstants {
 		/** Topologically sorted list of modules. */
 		final List<MavenModule> moduleList = layoutProject.getDisabledModules(false);
 
+		/** Member project pom.xml files. */
+		final List<FilePath> pomFileList = new ArrayList<FilePath>();
+
 		for (final MavenModule module : moduleList) {
 			if (isSameModuleName(layoutModule, module)) {
 				/** Layout project module */
@@ -116,19 +119,26 @@ public class LayoutLogic implements PluginConstants {
 
 				final FilePath moduleFolder = workspace.child(modulePath);
 
-				final FilePath pomFile = moduleFolder.child("pom.xml");
+				pomFileList.add(moduleFolder.child("pom.xml"));
 
-				final Model moduleModel = mavenModel(pomFile);
+			}
+		}
 
-				if (moduleModel.getModules().isEmpty()) {
-					continue;
-				}
+		/** Single remote read for all member projects. */
+		final Map<String, MavenPomSummary> summaryMap = MavenPomSummary.read(pomFileList);
+
+		for (final FilePath pomFile : pomFileList) {
 
-				context.logErr("Project contains <module/>: " + moduleModel);
-				context.logErr("Cascade member projects must not be using  <module/> entries.");
+			final MavenPomSummary summary = summaryMap.get(pomFile.getRemote());
 
-				return false;
+			if (!summary.hasModules()) {
+				continue;
 			}
+
+			context.logErr("Project contains <module/>: " + summary);
+			context.logErr("Cascade member projects must not be using  <module/> entries.");
+
+			return false;
 		}
 
 		return true;
@@ -274,6 +284,8 @@ public class LayoutLogic implements PluginConstants {
 
 		processMemberList(context, layoutProject, action);
 
+		ProjectRegistry.invalidateModules(layoutIdentity.getFamilyID());
+
 		return true;
 	}
 
@@ -95,7 +95,9 @@ public class LayoutOptions extends AbstractDescribableImpl<LayoutOptions>
 	private String mavenValidateGoals = MAVEN_VALIDATE_GOALS;
 	private String memberProjectName = MEMBER_PROJECT_NAME;
 
+	private boolean useGitMirror = false;
 	private boolean useSharedWorkspace = true;
+	private boolean useSparseCheckout = false;
 	private boolean syncReleasePlugins = true;
 
 	public LayoutOptions() {
@@ -112,7 +114,9 @@ public class LayoutOptions extends AbstractDescribableImpl<LayoutOptions>
 			//
 			final boolean useSharedWorkspace, //
 			final boolean buildAfterLayout, //
-			final boolean syncReleasePlugins //
+			final boolean syncReleasePlugins, //
+			final boolean useGitMirror, //
+			final boolean useSparseCheckout //
 	//
 	) {
 
@@ -124,6 +128,8 @@ public class LayoutOptions extends AbstractDescribableImpl<LayoutOptions>
 		this.useSharedWorkspace = useSharedWorkspace;
 		this.buildAfterLayout = buildAfterLayout;
 		this.syncReleasePlugins = syncReleasePlugins;
+		this.useGitMirror = useGitMirror;
+		this.useSparseCheckout = useSparseCheckout;
 
 	}
 
@@ -173,6 +179,14 @@ public class LayoutOptions extends AbstractDescribableImpl<LayoutOptions>
 		return memberProjectName;
 	}
 
+	/**
+	 * Member workspaces use shared per-node git mirror object store.
+	 */
+	@Jelly
+	public boolean getUseGitMirror() {
+		return useGitMirror;
+	}
+
 	/**
 	 * Layout and member projects share work space.
 	 */
@@ -181,6 +195,14 @@ public class LayoutOptions extends AbstractDescribableImpl<LayoutOptions>
 		return useSharedWorkspace;
 	}
 
+	/**
+	 * Member workspaces materialize only member module files.
+	 */
+	@Jelly
+	public boolean getUseSparseCheckout() {
+		return useSparseCheckout;
+	}
+
 	/**
 	 * Copy cascade release settings into m2release plug-in.
 	 */
@@ -0,0 +1,222 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.FilePath;
+import hudson.FilePath.FileCallable;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Model;
+
+/**
+ * Bounded LRU cache of parsed pom.xml models.
+ * <p>
+ * Keyed by pom.xml node and path, and validated by content digest, which is
+ * immune to coarse file time and same length edits such as version bumps.
+ * Digest and content are fetched in a single remote call, and content is
+ * transferred only when digest does not match the cached one.
+ * Entries are cloned on the way in and out, since maven models are mutable.
+ *
+ * @author Andrei Pozolotin
+ */
+public class MavenModelCache {
+
+	/**
+	 * Cached model with its content digest.
+	 */
+	private static class Entry {
+
+		final String digest;
+		final Model model;
+
+		Entry(final String digest, final Model model) {
+			this.digest = digest;
+			this.model = model;
+		}
+
+	}
+
+	/**
+	 * Read pom.xml digest, and content when digest differs from expected.
+	 */
+	public static class Reader implements FileCallable<Snapshot> {
+
+		private static final long serialVersionUID = 1L;
+
+		/** Cached digest, or null. */
+		private final String expected;
+
+		public Reader(final String expected) {
+			this.expected = expected;
+		}
+
+		public Snapshot invoke(final File file, final VirtualChannel channel)
+				throws IOException, InterruptedException {
+			if (!file.isFile()) {
+				throw new IOException("Missing pom.xml: " + file);
+			}
+			final byte[] content = FileUtils.readFileToByteArray(file);
+			final String digest = digest(content);
+			if (digest.equals(expected)) {
+				return new Snapshot(digest, null);
+			}
+			return new Snapshot(digest, new String(content, "UTF-8"));
+		}
+
+	}
+
+	/**
+	 * Remote pom.xml state.
+	 */
+	public static class Snapshot implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** Content digest. */
+		public final String digest;
+
+		/** File content, or null when digest matched the cached one. */
+		public final String text;
+
+		public Snapshot(final String digest, final String text) {
+			this.digest = digest;
+			this.text = text;
+		}
+
+	}
+
+	/**
+	 * Maximum number of cached models.
+	 */
+	public static final int CAPACITY = 1000;
+
+	private static final AtomicLong hitCount = new AtomicLong();
+
+	private static final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * [ node path : cached model ]
+	 */
+	private static final Map<String, Entry> modelMap = new LinkedHashMap<String, Entry>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+
+	/**
+	 * Discard all cached models.
+	 */
+	public static void clear() {
+		synchronized (modelMap) {
+			modelMap.clear();
+		}
+	}
+
+	/**
+	 * Content digest of a cached model, or null.
+	 */
+	public static String digest(final String key) {
+		synchronized (modelMap) {
+			final Entry entry = modelMap.get(key);
+			return entry == null ? null : entry.digest;
+		}
+	}
+
+	/**
+	 * Content digest: SHA-1, hex encoded.
+	 */
+	public static String digest(final byte[] content) throws IOException {
+		try {
+			final byte[] hash = MessageDigest.getInstance("SHA-1").digest(
+					content);
+			final StringBuilder text = new StringBuilder(hash.length * 2);
+			for (final byte item : hash) {
+				text.append(Character.forDigit((item >> 4) & 0xF, 16));
+				text.append(Character.forDigit(item & 0xF, 16));
+			}
+			return text.toString();
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Find cached model copy matching content digest, or null.
+	 */
+	public static Model get(final String key, final String digest) {
+		final Entry entry;
+		synchronized (modelMap) {
+			entry = modelMap.get(key);
+		}
+		if (entry == null || !entry.digest.equals(digest)) {
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return entry.model.clone();
+	}
+
+	/**
+	 * Number of cache hits since start.
+	 */
+	public static long hitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Cache key of a pom.xml file: node channel and remote path.
+	 */
+	public static String key(final FilePath pomFile) {
+		return pomFile.getChannel() + " " + pomFile.getRemote();
+	}
+
+	/**
+	 * Number of cache misses since start.
+	 */
+	public static long missCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Store model copy in the cache, after a miss.
+	 */
+	public static void put(final String key, final String digest,
+			final Model model) {
+		missCount.incrementAndGet();
+		final Model copy = model.clone();
+		synchronized (modelMap) {
+			modelMap.put(key, new Entry(digest, copy));
+		}
+	}
+
+	/**
+	 * Number of cached models.
+	 */
+	public static int size() {
+		synchronized (modelMap) {
+			return modelMap.size();
+		}
+	}
+
+	private MavenModelCache() {
+	}
+
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.FilePath;
+import hudson.FilePath.FileCallable;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Rewrite parent and dependency versions of a pom.xml file in place.
+ * <p>
+ * Only version text of matching snapshot entries is replaced, so formatting
+ * and comments are preserved. Property based versions are left alone.
+ *
+ * @author Andrei Pozolotin
+ */
+public class MavenPomRewriter implements FileCallable<List<String>> {
+
+	private static final Pattern COMMENT = Pattern.compile("<!--.*?-->",
+			Pattern.DOTALL);
+
+	private static final Pattern DEPENDENCY = block("dependency");
+
+	private static final Pattern ENCODING = Pattern
+			.compile("<\\?xml[^>]*encoding=[\"']([^\"']+)[\"']");
+
+	private static final Pattern EXCLUSIONS = block("exclusions");
+
+	private static final Pattern PARENT = block("parent");
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Pattern for element and its content.
+	 */
+	private static Pattern block(final String name) {
+		return Pattern.compile("<" + name + "\\s*>(.*?)</" + name + "\\s*>",
+				Pattern.DOTALL);
+	}
+
+	/**
+	 * Replace matched regions with spaces, keeping text offsets.
+	 */
+	private static String mask(final String text, final Pattern pattern) {
+		final StringBuilder result = new StringBuilder(text);
+		final Matcher matcher = pattern.matcher(text);
+		while (matcher.find()) {
+			for (int index = matcher.start(); index < matcher.end(); index++) {
+				if (!Character.isWhitespace(result.charAt(index))) {
+					result.setCharAt(index, ' ');
+				}
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Rewrite pom.xml on the node which owns it.
+	 *
+	 * @param versionMap
+	 *            [ groupId:artifactId : release version ]
+	 * @return list of performed changes
+	 */
+	public static List<String> rewrite(final FilePath pomFile,
+			final Map<String, String> versionMap) throws IOException {
+		try {
+			return pomFile.act(new MavenPomRewriter(versionMap));
+		} catch (final InterruptedException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Rewrite pom.xml text.
+	 *
+	 * @param versionMap
+	 *            [ groupId:artifactId : release version ]
+	 * @param changeList
+	 *            collector of performed changes
+	 * @return updated text
+	 */
+	public static String rewrite(final String text,
+			final Map<String, String> versionMap, final List<String> changeList) {
+
+		/** Comments are invisible to the search. */
+		final String mask = mask(text, COMMENT);
+
+		/** Version regions to replace, with new values. */
+		final List<int[]> regionList = new ArrayList<int[]>();
+		final List<String> valueList = new ArrayList<String>();
+
+		for (final Pattern pattern : new Pattern[] { PARENT, DEPENDENCY }) {
+
+			final Matcher matcher = pattern.matcher(mask);
+
+			while (matcher.find()) {
+
+				final int start = matcher.start(1);
+				final int finish = matcher.end(1);
+
+				/** Nested exclusions are not part of the coordinates. */
+				final String block = mask(mask.substring(start, finish),
+						EXCLUSIONS);
+
+				final int[] groupId = region(block, "groupId");
+				final int[] artifactId = region(block, "artifactId");
+				final int[] version = region(block, "version");
+
+				if (groupId == null || artifactId == null || version == null) {
+					continue;
+				}
+
+				final String key = block.substring(groupId[0], groupId[1])
+						+ ":" + block.substring(artifactId[0], artifactId[1]);
+
+				final String past = block.substring(version[0], version[1]);
+				final String next = versionMap.get(key);
+
+				if (next == null || !PluginUtilities.isSnapshot(past)) {
+					continue;
+				}
+
+				regionList.add(new int[] { start + version[0],
+						start + version[1] });
+				valueList.add(next);
+				changeList.add(key + ":" + past + " -> " + next);
+
+			}
+
+		}
+
+		/** Apply from the end, so earlier offsets stay valid. */
+		final StringBuilder result = new StringBuilder(text);
+		final List<Integer> orderList = new ArrayList<Integer>();
+		for (int index = 0; index < regionList.size(); index++) {
+			orderList.add(index);
+		}
+		Collections.sort(orderList, new Comparator<Integer>() {
+			public int compare(final Integer one, final Integer two) {
+				return regionList.get(two)[0] - regionList.get(one)[0];
+			}
+		});
+		for (final int index : orderList) {
+			final int[] region = regionList.get(index);
+			result.replace(region[0], region[1], valueList.get(index));
+		}
+
+		return result.toString();
+
+	}
+
+	/**
+	 * Trimmed content region of the first element with a literal value.
+	 *
+	 * @return [ start, finish ] or null
+	 */
+	private static int[] region(final String block, final String name) {
+		final Matcher matcher = block(name).matcher(block);
+		if (!matcher.find()) {
+			return null;
+		}
+		int start = matcher.start(1);
+		int finish = matcher.end(1);
+		while (start < finish && Character.isWhitespace(block.charAt(start))) {
+			start++;
+		}
+		while (finish > start
+				&& Character.isWhitespace(block.charAt(finish - 1))) {
+			finish--;
+		}
+		if (start == finish || block.startsWith("${", start)) {
+			return null;
+		}
+		return new int[] { start, finish };
+	}
+
+	/**
+	 * [ groupId:artifactId : release version ]
+	 */
+	private final Map<String, String> versionMap;
+
+	public MavenPomRewriter(final Map<String, String> versionMap) {
+		this.versionMap = versionMap;
+	}
+
+	/**
+	 * @return list of performed changes
+	 */
+	public List<String> invoke(final File file, final VirtualChannel channel)
+			throws IOException, InterruptedException {
+
+		final byte[] array = FileUtils.readFileToByteArray(file);
+
+		/** Declaration is always ascii compatible. */
+		final String head = new String(array, 0, Math.min(array.length, 200),
+				"ISO-8859-1");
+		final Matcher matcher = ENCODING.matcher(head);
+		final String encoding = matcher.find() ? matcher.group(1) : "UTF-8";
+
+		final String past = new String(array, encoding);
+
+		final List<String> changeList = new ArrayList<String>();
+
+		final String next = rewrite(past, versionMap, changeList);
+
+		if (!changeList.isEmpty()) {
+			FileUtils.writeByteArrayToFile(file, next.getBytes(encoding));
+		}
+
+		return changeList;
+
+	}
+
+}
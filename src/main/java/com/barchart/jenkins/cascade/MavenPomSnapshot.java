@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.FilePath;
+import hudson.maven.MavenModuleSet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared view of family member pom.xml summaries during a cascade.
+ * <p>
+ * Loaded in bulk once, then refreshed per member only after operations which
+ * can change its pom.xml, such as maven builds or SCM updates.
+ *
+ * @author Andrei Pozolotin
+ */
+public class MavenPomSnapshot {
+
+	/**
+	 * [ pom.xml remote path : pom summary ]
+	 */
+	private final Map<String, MavenPomSummary> summaryMap = new ConcurrentHashMap<String, MavenPomSummary>();
+
+	/**
+	 * Forget cached summary of a project.
+	 */
+	public void invalidate(final MavenModuleSet project) {
+		final FilePath pomFile = PluginUtilities.mavenPomFile(project);
+		if (pomFile == null) {
+			return;
+		}
+		summaryMap.remove(pomFile.getRemote());
+	}
+
+	/**
+	 * Read summaries of all projects with workspace, one call per node.
+	 *
+	 * @return number of loaded summaries
+	 */
+	public int load(final Collection<MavenModuleSet> projectList)
+			throws IOException {
+		final List<FilePath> pomFileList = new ArrayList<FilePath>();
+		for (final MavenModuleSet project : projectList) {
+			final FilePath pomFile = PluginUtilities.mavenPomFile(project);
+			if (pomFile == null) {
+				continue;
+			}
+			pomFileList.add(pomFile);
+		}
+		final Map<String, MavenPomSummary> loadMap = MavenPomSummary
+				.read(pomFileList);
+		summaryMap.putAll(loadMap);
+		return loadMap.size();
+	}
+
+	/**
+	 * Cached or freshly read summary of a project.
+	 */
+	public MavenPomSummary summary(final MavenModuleSet project)
+			throws IOException {
+		final FilePath pomFile = PluginUtilities.mavenPomFile(project);
+		if (pomFile == null) {
+			throw new IOException("Project has no workspace: "
+					+ project.getName());
+		}
+		final String path = pomFile.getRemote();
+		MavenPomSummary summary = summaryMap.get(path);
+		if (summary == null) {
+			summary = MavenPomSummary.read(pomFile);
+			summaryMap.put(path, summary);
+		}
+		return summary;
+	}
+
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.FilePath;
+import hudson.FilePath.FileCallable;
+import hudson.maven.ModuleName;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+
+import com.barchart.jenkins.cascade.PluginUtilities.DependencyMatcher;
+
+/**
+ * Compact remote-friendly summary of a pom.xml file.
+ * <p>
+ * Carries only what cascade logic needs: coordinates, parent, dependencies
+ * and module presence. Many summaries can be produced in a single remote call
+ * with {@link #read(Collection)}.
+ *
+ * @author Andrei Pozolotin
+ */
+public class MavenPomSummary implements Serializable {
+
+	/**
+	 * Parse list of pom.xml files on the node which owns them.
+	 */
+	public static class Reader implements FileCallable<Map<String, MavenPomSummary>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> pathList;
+
+		public Reader(final List<String> pathList) {
+			this.pathList = pathList;
+		}
+
+		/**
+		 * @return [ remote path : pom summary ]
+		 */
+		public Map<String, MavenPomSummary> invoke(final File basedir,
+				final VirtualChannel channel) throws IOException,
+				InterruptedException {
+
+			final Map<String, MavenPomSummary> summaryMap = new HashMap<String, MavenPomSummary>();
+
+			final MavenXpp3Reader xmlReader = new MavenXpp3Reader();
+
+			for (final String path : pathList) {
+				final InputStream input = new FileInputStream(new File(path));
+				try {
+					final Model model = xmlReader.read(input);
+					PluginUtilities.ensureFields(model);
+					summaryMap.put(path, new MavenPomSummary(model));
+				} catch (final IOException e) {
+					throw e;
+				} catch (final Exception e) {
+					throw new IOException(path, e);
+				} finally {
+					input.close();
+				}
+			}
+
+			return summaryMap;
+
+		}
+
+	}
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Read single pom.xml summary.
+	 */
+	public static MavenPomSummary read(final FilePath pomFile)
+			throws IOException {
+		return read(Collections.singletonList(pomFile)).get(pomFile.getRemote());
+	}
+
+	/**
+	 * Read pom.xml summaries, one remote call per node.
+	 *
+	 * @return [ remote path : pom summary ]
+	 */
+	public static Map<String, MavenPomSummary> read(
+			final Collection<FilePath> pomFileList) throws IOException {
+
+		/** [ channel : pom files ] */
+		final Map<VirtualChannel, List<FilePath>> channelMap = new LinkedHashMap<VirtualChannel, List<FilePath>>();
+
+		for (final FilePath pomFile : pomFileList) {
+			List<FilePath> list = channelMap.get(pomFile.getChannel());
+			if (list == null) {
+				list = new ArrayList<FilePath>();
+				channelMap.put(pomFile.getChannel(), list);
+			}
+			list.add(pomFile);
+		}
+
+		final Map<String, MavenPomSummary> summaryMap = new HashMap<String, MavenPomSummary>();
+
+		for (final List<FilePath> list : channelMap.values()) {
+			final List<String> pathList = new ArrayList<String>();
+			for (final FilePath pomFile : list) {
+				pathList.add(pomFile.getRemote());
+			}
+			try {
+				summaryMap.putAll(list.get(0).act(new Reader(pathList)));
+			} catch (final InterruptedException e) {
+				throw new IOException(e);
+			}
+		}
+
+		return summaryMap;
+
+	}
+
+	private final String artifactId;
+
+	private final List<Dependency> dependencyList;
+
+	private final String groupId;
+
+	private final boolean hasModules;
+
+	private final Parent parent;
+
+	private final String version;
+
+	public MavenPomSummary(final Model model) {
+		this.groupId = model.getGroupId();
+		this.artifactId = model.getArtifactId();
+		this.version = model.getVersion();
+		this.parent = model.getParent();
+		this.hasModules = !model.getModules().isEmpty();
+		final List<Dependency> list = new ArrayList<Dependency>();
+		list.addAll(model.getDependencyManagement().getDependencies());
+		list.addAll(model.getDependencies());
+		this.dependencyList = list;
+	}
+
+	/**
+	 * Collect matching dependencies: managed first, then direct.
+	 */
+	public List<Dependency> dependencies(final DependencyMatcher matcher) {
+		final List<Dependency> resultList = new ArrayList<Dependency>();
+		for (final Dependency dependency : dependencyList) {
+			if (matcher.isMatch(dependency)) {
+				resultList.add(dependency);
+			}
+		}
+		return resultList;
+	}
+
+	public String getArtifactId() {
+		return artifactId;
+	}
+
+	public String getGroupId() {
+		return groupId;
+	}
+
+	/**
+	 * Maven parent, or null.
+	 */
+	public Parent getParent() {
+		return parent;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * Pom declares some &lt;module/&gt; entries.
+	 */
+	public boolean hasModules() {
+		return hasModules;
+	}
+
+	/**
+	 * Version is not a snapshot.
+	 */
+	public boolean isRelease() {
+		return !PluginUtilities.isSnapshot(version);
+	}
+
+	/**
+	 * Jenkins module name of this pom.
+	 */
+	public ModuleName moduleName() {
+		return new ModuleName(groupId, artifactId);
+	}
+
+	@Override
+	public String toString() {
+		return groupId + ":" + artifactId + ":" + version;
+	}
+
+}
@@ -34,6 +34,8 @@ public class MemberBuildAction extends AbstractAction {
 
 	private final ProjectIdentity identity;
 
+	private boolean planOnly;
+
 	private String releaseVersion;
 
 	private String snapshotVersion;
@@ -45,6 +47,21 @@ public class MemberBuildAction extends AbstractAction {
 		this.identity = identity;
 	}
 
+	/**
+	 * Cascade request without submitted form, such as from tests.
+	 */
+	public MemberBuildAction( //
+			final ProjectIdentity identity, //
+			final String releaseVersion, //
+			final String snapshotVersion, //
+			final boolean planOnly //
+	) {
+		this(identity);
+		this.releaseVersion = releaseVersion;
+		this.snapshotVersion = snapshotVersion;
+		this.planOnly = planOnly;
+	}
+
 	/**
 	 * Calculate current release.
 	 */
@@ -91,6 +108,7 @@ public class MemberBuildAction extends AbstractAction {
 		final JSONObject props = json.getJSONObject("releaseProperties");
 		releaseVersion = props.getString("releaseVersion");
 		snapshotVersion = props.getString("snapshotVersion");
+		planOnly = props.optBoolean("planOnly");
 
 		final CascadeProject cascadeProject = identity.cascadeProject();
 		final MavenModuleSet memberProject = identity.memberProject();
@@ -138,6 +156,14 @@ public class MemberBuildAction extends AbstractAction {
 				.getLayoutOptions();
 	}
 
+	/**
+	 * Compute and report release plan without any maven builds.
+	 */
+	@Jelly
+	public boolean getPlanOnly() {
+		return planOnly;
+	}
+
 	@Jelly
 	public String getReleaseVersion() {
 		return releaseVersion;
@@ -153,7 +179,7 @@ public class MemberBuildAction extends AbstractAction {
 	 */
 	@SuppressWarnings("rawtypes")
 	public Map<String, AbstractProject> reportActiveFamilyProjects() {
-		return RunDecider.reportActiveFamilyProjects(identity);
+		return RunDispatcher.reportActiveFamilyProjects(identity);
 	}
 
 }
@@ -66,6 +66,7 @@ public class PluginActivator extends Plugin implements
 	public void stop() throws Exception {
 
 		save();
+		GraphRenderer.shutdown();
 		super.stop();
 		log.info("### Stop.");
 
@@ -56,6 +56,23 @@ public interface PluginConstants {
 	String MEMBER_VIEW_ICON = "monkey.png";
 	String MEMBER_VIEW_URL = "cascade-view";
 
+	/* Cascade timing. */
+
+	String CASCADE_TIMING_NAME = "Cascade Timing";
+	String CASCADE_TIMING_ICON = "game-diamond.png";
+	String CASCADE_TIMING_URL = "cascade-timing";
+
+	/* Cascade resume. */
+
+	String CASCADE_RESUME_NAME = "Cascade Resume";
+	String CASCADE_RESUME_ICON = "reload.png";
+	String CASCADE_RESUME_URL = "cascade-resume";
+
+	/* Plugin metrics. */
+
+	String PLUGIN_METRICS_NAME = "Cascade Metrics";
+	String PLUGIN_METRICS_URL = "cascade-metrics";
+
 	/* Member graph. */
 
 	String MEMBER_GRAPH_NAME = "Cascade Graph";
@@ -0,0 +1,367 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plugin metrics registry: counters and histograms, rendered in prometheus
+ * text exposition format together with gauges and counters sampled at render
+ * time.
+ * <p>
+ * Metrics live in controller memory only and are reset on restart.
+ *
+ * @author Andrei Pozolotin
+ */
+public class PluginMetrics {
+
+	/**
+	 * Monotonic event counter.
+	 */
+	public static class Counter extends Metric {
+
+		private final AtomicLong value = new AtomicLong();
+
+		public Counter(final String name, final String labels) {
+			super(name, labels);
+		}
+
+		public void add(final long delta) {
+			value.addAndGet(delta);
+		}
+
+		public void increment() {
+			value.incrementAndGet();
+		}
+
+		@Override
+		protected void render(final StringBuilder text) {
+			sample(text, name, labels, value.get());
+		}
+
+		@Override
+		public String type() {
+			return "counter";
+		}
+
+		public long value() {
+			return value.get();
+		}
+
+	}
+
+	/**
+	 * Value sampled at render time.
+	 */
+	public static class Gauge extends Metric {
+
+		private final double value;
+
+		public Gauge(final String name, final String labels, final double value) {
+			super(name, labels);
+			this.value = value;
+		}
+
+		@Override
+		protected void render(final StringBuilder text) {
+			sample(text, name, labels, value);
+		}
+
+		@Override
+		public String type() {
+			return "gauge";
+		}
+
+	}
+
+	/**
+	 * Distribution of observed values over fixed buckets.
+	 */
+	public static class Histogram extends Metric {
+
+		private final double[] bounds;
+
+		private long count;
+
+		/** Non-cumulative bucket counts, last one is overflow. */
+		private final long[] counts;
+
+		private double sum;
+
+		public Histogram(final String name, final String labels,
+				final double[] bounds) {
+			super(name, labels);
+			this.bounds = bounds;
+			this.counts = new long[bounds.length + 1];
+		}
+
+		public synchronized void observe(final double value) {
+			int index = 0;
+			while (index < bounds.length && value > bounds[index]) {
+				index++;
+			}
+			counts[index]++;
+			count++;
+			sum += value;
+		}
+
+		/**
+		 * Observe time since start, seconds.
+		 *
+		 * @param start
+		 *            millis since epoch
+		 */
+		public void observeSince(final long start) {
+			observe((System.currentTimeMillis() - start) / 1000.0);
+		}
+
+		@Override
+		protected synchronized void render(final StringBuilder text) {
+			final String prefix = labels.length() == 0 ? "" : labels + ",";
+			long total = 0;
+			for (int index = 0; index < bounds.length; index++) {
+				total += counts[index];
+				sample(text, name + "_bucket", prefix + "le=\"" + bounds[index]
+						+ "\"", total);
+			}
+			sample(text, name + "_bucket", prefix + "le=\"+Inf\"", count);
+			sample(text, name + "_sum", labels, sum);
+			sample(text, name + "_count", labels, count);
+		}
+
+		@Override
+		public String type() {
+			return "histogram";
+		}
+
+	}
+
+	/**
+	 * Named metric series with fixed labels.
+	 */
+	public static abstract class Metric {
+
+		/** Rendered label pairs, without braces, or empty. */
+		protected final String labels;
+
+		protected final String name;
+
+		protected Metric(final String name, final String labels) {
+			this.name = name;
+			this.labels = labels;
+		}
+
+		protected abstract void render(StringBuilder text);
+
+		/**
+		 * Prometheus metric type.
+		 */
+		public abstract String type();
+
+	}
+
+	/**
+	 * Counter value sampled at render time, such as accumulated seconds.
+	 */
+	public static class Total extends Gauge {
+
+		public Total(final String name, final String labels, final double value) {
+			super(name, labels, value);
+		}
+
+		@Override
+		public String type() {
+			return "counter";
+		}
+
+	}
+
+	/**
+	 * Bucket bounds for counts, such as members per cascade.
+	 */
+	public static final double[] COUNT_BUCKETS = { 1, 2, 5, 10, 20, 50, 100,
+			200, 500, 1000 };
+
+	/**
+	 * Bucket bounds for latency, seconds.
+	 */
+	public static final double[] TIME_BUCKETS = { 0.005, 0.01, 0.05, 0.1,
+			0.5, 1, 5, 10, 60, 300, 1800, 3600, 4 * 3600 };
+
+	/**
+	 * [ name labels : metric ]
+	 */
+	private static final ConcurrentMap<String, Metric> metricMap = new ConcurrentHashMap<String, Metric>();
+
+	/**
+	 * Sample plugin state which is kept outside of the registry.
+	 */
+	private static void collect(final Map<String, Metric> map) {
+
+		gauge(map, "cascade_model_cache_size", MavenModelCache.size());
+		counter(map, "cascade_model_cache_hit_total",
+				MavenModelCache.hitCount());
+		counter(map, "cascade_model_cache_miss_total",
+				MavenModelCache.missCount());
+
+		gauge(map, "cascade_git_cache_size", PluginScmGitCache.size());
+
+		gauge(map, "cascade_graph_render_pending",
+				GraphRenderer.pendingCount());
+
+		for (final RunLock lock : RunLock.lockList()) {
+			for (final ProjectRole role : ProjectRole.values()) {
+				gauge(map, "cascade_run_active", lock.count(role), "family",
+						lock.familyID(), "role", role.name());
+			}
+		}
+
+		for (final WorkspaceLock lock : WorkspaceLock.lockList()) {
+			final String family = lock.familyID();
+			gauge(map, "cascade_workspace_lock_read", lock.readCount(),
+					"family", family);
+			gauge(map, "cascade_workspace_lock_write", lock.writeCount(),
+					"family", family);
+			gauge(map, "cascade_workspace_lock_queue", lock.queueLength(),
+					"family", family);
+			counter(map, "cascade_workspace_lock_timeout_total",
+					lock.timeoutCount(), "family", family);
+			counter(map, "cascade_workspace_lock_wait_seconds_total",
+					lock.waitTime() / 1000.0, "family", family);
+			counter(map, "cascade_workspace_lock_hold_seconds_total",
+					lock.holdTime() / 1000.0, "family", family);
+		}
+
+	}
+
+	/**
+	 * Produce existing or create new counter.
+	 *
+	 * @param labels
+	 *            label name and value pairs
+	 */
+	public static Counter counter(final String name, final String... labels) {
+		final String text = labels(labels);
+		final String key = name + " " + text;
+		Metric metric = metricMap.get(key);
+		if (metric == null) {
+			metric = new Counter(name, text);
+			metricMap.putIfAbsent(key, metric);
+			metric = metricMap.get(key);
+		}
+		return (Counter) metric;
+	}
+
+	/**
+	 * Sample counter which is kept outside of the registry.
+	 */
+	private static void counter(final Map<String, Metric> map,
+			final String name, final double value, final String... labels) {
+		final String text = labels(labels);
+		map.put(name + " " + text, new Total(name, text, value));
+	}
+
+	private static String escape(final String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"")
+				.replace("\n", "\\n");
+	}
+
+	private static void gauge(final Map<String, Metric> map,
+			final String name, final double value, final String... labels) {
+		final String text = labels(labels);
+		map.put(name + " " + text, new Gauge(name, text, value));
+	}
+
+	/**
+	 * Produce existing or create new histogram.
+	 *
+	 * @param labels
+	 *            label name and value pairs
+	 */
+	public static Histogram histogram(final String name,
+			final double[] bounds, final String... labels) {
+		final String text = labels(labels);
+		final String key = name + " " + text;
+		Metric metric = metricMap.get(key);
+		if (metric == null) {
+			metric = new Histogram(name, text, bounds);
+			metricMap.putIfAbsent(key, metric);
+			metric = metricMap.get(key);
+		}
+		return (Histogram) metric;
+	}
+
+	private static String labels(final String... labels) {
+		final StringBuilder text = new StringBuilder();
+		for (int index = 0; index + 1 < labels.length; index += 2) {
+			if (text.length() > 0) {
+				text.append(',');
+			}
+			text.append(labels[index]).append("=\"")
+					.append(escape(String.valueOf(labels[index + 1])))
+					.append('"');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Render all metrics in prometheus text format.
+	 */
+	public static String render() {
+		final Map<String, Metric> map = new TreeMap<String, Metric>(metricMap);
+		collect(map);
+		final StringBuilder text = new StringBuilder();
+		String past = null;
+		for (final Metric metric : map.values()) {
+			if (!metric.name.equals(past)) {
+				text.append("# TYPE ").append(metric.name).append(' ')
+						.append(metric.type()).append('\n');
+				past = metric.name;
+			}
+			metric.render(text);
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Discard all registered metrics.
+	 */
+	public static void reset() {
+		metricMap.clear();
+	}
+
+	private static void sample(final StringBuilder text, final String name,
+			final String labels, final double value) {
+		text.append(name);
+		if (labels.length() > 0) {
+			text.append('{').append(labels).append('}');
+		}
+		text.append(' ');
+		if (value == Math.rint(value) && !Double.isInfinite(value)) {
+			text.append((long) value);
+		} else {
+			text.append(value);
+		}
+		text.append('\n');
+	}
+
+	/**
+	 * Produce existing or create new latency histogram, seconds.
+	 */
+	public static Histogram timer(final String name, final String... labels) {
+		return histogram(name, TIME_BUCKETS, labels);
+	}
+
+	private PluginMetrics() {
+	}
+
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.Extension;
+import hudson.model.Hudson;
+import hudson.model.RootAction;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Plain text metrics endpoint for scraping, in prometheus text format.
+ * <p>
+ * Served at jenkins root, hidden from the side panel.
+ *
+ * @author Andrei Pozolotin
+ */
+@Extension
+public class PluginMetricsAction extends AbstractAction implements
+		RootAction {
+
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+
+	public PluginMetricsAction() {
+		super(PLUGIN_METRICS_NAME, null, PLUGIN_METRICS_URL);
+	}
+
+	/**
+	 * Render current metrics.
+	 */
+	@Jelly
+	public void doIndex(final StaplerRequest req, final StaplerResponse rsp)
+			throws IOException {
+
+		Hudson.getInstance().checkPermission(Hudson.READ);
+
+		rsp.setContentType(CONTENT_TYPE);
+		rsp.setHeader("Cache-Control", "no-cache");
+
+		final Writer writer = rsp.getWriter();
+		writer.write(PluginMetrics.render());
+		writer.flush();
+
+	}
+
+}
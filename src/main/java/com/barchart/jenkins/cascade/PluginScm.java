@@ -8,9 +8,12 @@
 package com.barchart.jenkins.cascade;
 
 import hudson.FilePath;
+import hudson.Util;
 import hudson.FilePath.FileCallable;
+import hudson.maven.MavenModule;
 import hudson.maven.MavenModuleSet;
 import hudson.model.AbstractProject;
+import hudson.model.Node;
 import hudson.plugins.git.BranchSpec;
 import hudson.plugins.git.GitSCM;
 import hudson.remoting.VirtualChannel;
@@ -19,24 +22,19 @@ import hudson.scm.SCM;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jgit.api.CheckoutResult;
 import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.MergeResult.MergeStatus;
 import org.eclipse.jgit.api.Status;
-import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.lib.RefUpdate;
-import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.transport.FetchResult;
-import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.RemoteConfig;
-import org.eclipse.jgit.transport.RemoteRefUpdate;
-import org.eclipse.jgit.transport.TrackingRefUpdate;
 
 /**
  * Plugin SCM utilities.
@@ -45,6 +43,11 @@ import org.eclipse.jgit.transport.TrackingRefUpdate;
  */
 public class PluginScm {
 
+	/**
+	 * Node folder with shared git mirrors.
+	 */
+	public static final String MIRROR_FOLDER = "cascade-mirror";
+
 	/**
 	 * Verify jenkins scm assumptions for cascade to work.
 	 */
@@ -121,6 +124,56 @@ public class PluginScm {
 
 	}
 
+	/**
+	 * Location of shared git mirror on the project node, or null when mirror
+	 * is not in use.
+	 */
+	public static String mirrorPath(final BuildContext<?> context,
+			final MavenModuleSet project) {
+		if (!context.layoutOptions().getUseGitMirror()) {
+			return null;
+		}
+		final Node node = project.getLastBuiltOn();
+		if (node == null) {
+			return null;
+		}
+		final FilePath root = node.getRootPath();
+		if (root == null) {
+			return null;
+		}
+		final GitSCM gitScm = (GitSCM) project.getScm();
+		final String digest = Util.getDigestOf(remoteURI(gitScm));
+		return root.child(MIRROR_FOLDER).child(digest + ".git").getRemote();
+	}
+
+	/**
+	 * Member module path for sparse work tree, or null for full work tree.
+	 */
+	public static String sparsePath(final BuildContext<?> context,
+			final MavenModuleSet project) {
+		final LayoutOptions layoutOptions = context.layoutOptions();
+		if (!layoutOptions.getUseSparseCheckout()) {
+			return null;
+		}
+		/** Layout needs complete work tree. */
+		if (layoutOptions.getUseSharedWorkspace()) {
+			return null;
+		}
+		final ProjectIdentity identity = ProjectIdentity.identity(project);
+		if (identity == null || identity.role() != ProjectRole.MEMBER) {
+			return null;
+		}
+		final MavenModule module = project.getRootModule();
+		if (module == null) {
+			return null;
+		}
+		final String path = module.getRelativePath();
+		if (path == null || path.length() == 0) {
+			return null;
+		}
+		return path;
+	}
+
 	public static String remoteBranchName(final GitSCM gitScm) {
 		return gitScm.getBranches().get(0).getName();
 	}
@@ -129,17 +182,10 @@ public class PluginScm {
 		return gitScm.getRepositories().get(0).getName();
 	}
 
-	public static String remoteURI(final GitSCM gitScm) {
-		return gitScm.getRepositories().get(0).getURIs().get(0)
-				.toPrivateString();
-	}
-
 	/**
-	 * Transmit into remote.
+	 * Remote branch of a project, such as for push locking.
 	 */
-	public static void scmCheckin(final BuildContext<CascadeBuild> context,
-			final MavenModuleSet project) throws IOException,
-			InterruptedException {
+	public static String remoteKey(final MavenModuleSet project) {
 
 		final String message = checkScm(project);
 
@@ -148,50 +194,74 @@ public class PluginScm {
 		}
 
 		final GitSCM gitScm = (GitSCM) project.getScm();
-		final FilePath workspace = workspace(context, project);
 
-		/** Remote objects. */
-		final BuildLogger logger = context.logger();
-		final String localBranch = localBranchName(gitScm);
-		final String remoteName = remoteName(gitScm);
-		final String remoteBranch = remoteBranchName(gitScm);
+		return remoteURI(gitScm) + "#" + remoteBranchName(gitScm);
 
-		/** Remote operation. */
-		final FileCallable<Void> callable = new FileCallable<Void>() {
-
-			private static final long serialVersionUID = 1L;
-
-			public Void invoke(final File basedir, final VirtualChannel channel)
-					throws IOException, InterruptedException {
+	}
 
-				final RefSpec pushSpec = PluginScmGit.refPush(localBranch,
-						remoteBranch);
+	public static String remoteURI(final GitSCM gitScm) {
+		return gitScm.getRepositories().get(0).getURIs().get(0)
+				.toPrivateString();
+	}
 
-				final Iterable<PushResult> pushResultList = PluginScmGit
-						.doPush(basedir, remoteName, pushSpec);
+	/**
+	 * Perform commit, update and push in a single remote call.
+	 * 
+	 * @param pattern
+	 *            file to commit, or null for no commit
+	 */
+	public static PluginScmBatch.Report scmBatch(final BuildContext<?> context,
+			final MavenModuleSet project, final String pattern,
+			final boolean shouldUpdate, final boolean shouldPush)
+			throws IOException, InterruptedException {
 
-				final PushResult pushResult = pushResultList.iterator().next();
+		final String message = checkScm(project);
 
-				final String refHeads = PluginScmGit.refHeads(remoteBranch);
+		if (message != null) {
+			throw new IllegalStateException(message);
+		}
 
-				final RemoteRefUpdate remoteUpdate = pushResult
-						.getRemoteUpdate(refHeads);
+		final GitSCM gitScm = (GitSCM) project.getScm();
+		final FilePath workspace = workspace(context, project);
 
-				final RemoteRefUpdate.Status pushStatus = remoteUpdate
-						.getStatus();
+		final PluginScmBatch batch = new PluginScmBatch( //
+				pattern, //
+				person(gitScm), //
+				localBranchName(gitScm), //
+				remoteName(gitScm), //
+				remoteBranchName(gitScm), //
+				remoteURI(gitScm), //
+				mirrorPath(context, project), //
+				shouldUpdate, //
+				shouldPush //
+		);
+
+		final PluginScmBatch.Report report = workspace.act(batch);
+
+		/** Batch parts are timed where they ran. */
+		for (final Map.Entry<String, Long> entry : report.getTimeMap()
+				.entrySet()) {
+			PluginMetrics.timer("cascade_scm_seconds", "operation",
+					entry.getKey()).observe(entry.getValue() / 1000.0);
+		}
 
-				logger.logTab("push status: " + pushStatus);
+		report.log(context.logger());
 
-				if (!PluginScmGit.isSuccess(pushStatus)) {
-					throw new IllegalStateException("Unexpected");
-				}
+		if (!report.isSuccess()) {
+			throw new IllegalStateException(report.getError());
+		}
 
-				return null;
-			}
-		};
+		return report;
 
-		workspace.act(callable);
+	}
 
+	/**
+	 * Transmit into remote.
+	 */
+	public static void scmCheckin(final BuildContext<CascadeBuild> context,
+			final MavenModuleSet project) throws IOException,
+			InterruptedException {
+		scmBatch(context, project, null, false, true);
 	}
 
 	/**
@@ -216,12 +286,24 @@ public class PluginScm {
 		final String remoteURI = remoteURI(gitScm);
 		final String remoteName = remoteName(gitScm);
 		final String remoteBranch = remoteBranchName(gitScm);
+		final String mirrorPath = mirrorPath(context, project);
+		final String sparsePath = sparsePath(context, project);
 
 		/** Remote operation. */
 		final FileCallable<String> callable = new FileCallable<String>() {
 
 			private static final long serialVersionUID = 1L;
 
+			private void clone(final File basedir) {
+				if (mirrorPath == null) {
+					PluginScmGit.doClone(basedir, remoteURI, remoteName);
+				} else {
+					logger.logTab("clone from mirror: " + mirrorPath);
+					PluginScmGitMirror.doClone(basedir, remoteURI, remoteName,
+							new File(mirrorPath));
+				}
+			}
+
 			public String invoke(final File basedir,
 					final VirtualChannel channel) throws IOException,
 					InterruptedException {
@@ -234,7 +316,10 @@ public class PluginScm {
 
 					final Status status = PluginScmGit.doStatus(basedir);
 
-					if (!status.isClean()) {
+					final boolean isDirty = sparsePath == null ? !status
+							.isClean() : PluginScmGitSparse.isDirty(status);
+
+					if (isDirty) {
 						logger.logTab("repository needs cleanup");
 						PluginScmGit.doReset(basedir);
 					}
@@ -243,8 +328,14 @@ public class PluginScm {
 					final RefSpec fetchSpec = PluginScmGit.refFetch(
 							remoteBranch, remoteName, remoteBranch);
 
-					final FetchResult fetchResult = PluginScmGit.doFetch(
-							basedir, remoteName, fetchSpec);
+					final FetchResult fetchResult;
+					if (mirrorPath == null) {
+						fetchResult = PluginScmGit.doFetch(basedir,
+								remoteName, fetchSpec);
+					} else {
+						fetchResult = PluginScmGitMirror.doFetch(basedir,
+								remoteURI, fetchSpec, new File(mirrorPath));
+					}
 
 					logger.logTab("fetch result: "
 							+ fetchResult.getTrackingRefUpdates().size());
@@ -271,14 +362,43 @@ public class PluginScm {
 					logger.logTab("merge result: " + mergeStatus);
 
 					if (!mergeStatus.isSuccessful()) {
-						logger.logTab("repository needs clone");
-						PluginScmGit.doClone(basedir, remoteURI, remoteName);
+						logger.logTab("repository needs reset: "
+								+ commit.name());
+						try {
+							/** Reuse local objects, no transfer needed. */
+							PluginScmGit.doReset(basedir, commit);
+							final Set<String> cleanSet = PluginScmGit
+									.doClean(basedir);
+							logger.logTab("removed untracked: "
+									+ cleanSet.size());
+						} catch (final RuntimeException e) {
+							logger.logErr("reset failure: " + e.getMessage());
+							logger.logTab("repository needs clone");
+							clone(basedir);
+						}
 					}
 
 				} else {
 
 					logger.logTab("repository needs clone");
-					PluginScmGit.doClone(basedir, remoteURI, remoteName);
+					clone(basedir);
+
+				}
+
+				if (sparsePath != null) {
+
+					final int count = PluginScmGitSparse.doCheckout(basedir,
+							localBranch, remoteName, remoteBranch, sparsePath);
+
+					logger.logTab("sparse checkout: " + sparsePath + " files="
+							+ count);
+
+					final Ref ref = PluginScmGit.findRef(basedir, localBranch);
+
+					logger.logTab(localBranch + ": "
+							+ ref.getObjectId().name());
+
+					return null;
 
 				}
 
@@ -307,8 +427,13 @@ public class PluginScm {
 			}
 		};
 
+		final long time = System.currentTimeMillis();
+
 		workspace.act(callable);
 
+		PluginMetrics.timer("cascade_scm_seconds", "operation", "checkout")
+				.observeSince(time);
+
 	}
 
 	/**
@@ -317,52 +442,7 @@ public class PluginScm {
 	public static void scmCommit(final BuildContext<?> context,
 			final MavenModuleSet project, final String pattern)
 			throws IOException, InterruptedException {
-
-		final String message = checkScm(project);
-
-		if (message != null) {
-			throw new IllegalStateException(message);
-		}
-
-		final GitSCM gitScm = (GitSCM) project.getScm();
-		final FilePath workspace = workspace(context, project);
-
-		/** Remote objects. */
-		final BuildLogger logger = context.logger();
-		final PersonIdent person = person(gitScm);
-
-		/** Remote operation. */
-		final FileCallable<Void> callable = new FileCallable<Void>() {
-
-			private static final long serialVersionUID = 1L;
-
-			public Void invoke(final File basedir, final VirtualChannel channel)
-					throws IOException, InterruptedException {
-
-				final Status status = PluginScmGit.doStatus(basedir);
-				final Set<String> modifiedSet = status.getModified();
-				// logger.logTab("modifiedSet: " + modifiedSet);
-
-				if (!modifiedSet.contains(pattern)) {
-					logger.logTab("no change: " + pattern);
-					return null;
-				}
-
-				final DirCache addResult = PluginScmGit.doAdd(basedir, pattern);
-				logger.logTab("added: " + pattern);
-
-				final String commitMessage = "[cascade]" + " " + pattern;
-
-				final RevCommit commitResult = PluginScmGit.doCommit(basedir,
-						person, commitMessage);
-				logger.logTab("commit: " + commitResult.name());
-
-				return null;
-			}
-		};
-
-		workspace.act(callable);
-
+		scmBatch(context, project, pattern, false, false);
 	}
 
 	/**
@@ -371,89 +451,7 @@ public class PluginScm {
 	public static void scmUpdate(final BuildContext<CascadeBuild> context,
 			final MavenModuleSet project) throws IOException,
 			InterruptedException {
-
-		final String message = checkScm(project);
-
-		if (message != null) {
-			throw new IllegalStateException(message);
-		}
-
-		final GitSCM gitScm = (GitSCM) project.getScm();
-		final FilePath workspace = workspace(context, project);
-
-		/** Remote objects. */
-		final BuildLogger logger = context.logger();
-		final String localBranch = localBranchName(gitScm);
-		final String remoteName = remoteName(gitScm);
-		final String remoteBranch = remoteBranchName(gitScm);
-
-		/** Remote operation. */
-		final FileCallable<Void> callable = new FileCallable<Void>() {
-
-			private static final long serialVersionUID = 1L;
-
-			public Void invoke(final File basedir, final VirtualChannel channel)
-					throws IOException, InterruptedException {
-
-				final String localBranchCurrent = PluginScmGit.branch(basedir);
-
-				if (!localBranchCurrent.equals(localBranch)) {
-					logger.logErr("branch mismatch: " + localBranchCurrent
-							+ "/" + localBranch);
-					throw new IllegalStateException("Unexpected");
-				}
-
-				/** Spec for the fetch mapping. */
-				final RefSpec fetchSpec = PluginScmGit.refFetch(remoteBranch,
-						remoteName, remoteBranch);
-
-				final FetchResult fetchResult = PluginScmGit.doFetch(basedir,
-						remoteName, fetchSpec);
-
-				/** Spec of the head of the remote branch. */
-				final String refHead = PluginScmGit.refHeads(remoteBranch);
-
-				/** Spec of the head of the local remote tracking branch. */
-				final String refRemote = PluginScmGit.refRemotes(remoteName,
-						remoteBranch);
-
-				final TrackingRefUpdate trackingUpdate = fetchResult
-						.getTrackingRefUpdate(refRemote);
-
-				if (trackingUpdate == null) {
-					logger.logTab("fetch status: " + "no update");
-					return null;
-				} else {
-					final RefUpdate.Result fetchStatus = trackingUpdate
-							.getResult();
-					logger.logTab("fetch status: " + fetchStatus);
-					if (fetchStatus == RefUpdate.Result.NO_CHANGE) {
-						return null;
-					}
-				}
-
-				/** Reference to head of the remote branch. */
-				final Ref remoteHead = fetchResult.getAdvertisedRef(refHead);
-
-				final ObjectId commit = remoteHead.getObjectId();
-				// logger.logTab("commit: " + commit);
-
-				final MergeResult mergeResult = PluginScmGit.doMerge(basedir,
-						commit);
-
-				final MergeStatus mergeStatus = mergeResult.getMergeStatus();
-				logger.logTab("merge status: " + mergeStatus);
-
-				if (!mergeStatus.isSuccessful()) {
-					throw new IllegalStateException("Unexpected");
-				}
-
-				return null;
-			}
-		};
-
-		workspace.act(callable);
-
+		scmBatch(context, project, null, true, false);
 	}
 
 	/**
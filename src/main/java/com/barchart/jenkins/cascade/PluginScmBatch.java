@@ -0,0 +1,340 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.FilePath.FileCallable;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.api.MergeResult.MergeStatus;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.transport.TrackingRefUpdate;
+
+/**
+ * Sequence of git operations performed in a single remote call:
+ * <p>
+ * status, add, commit, then optional fetch, merge and push.
+ *
+ * @author Andrei Pozolotin
+ */
+public class PluginScmBatch implements FileCallable<PluginScmBatch.Report> {
+
+	/**
+	 * Structured result of a batch.
+	 */
+	public static class Report implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** New commit id, or null. */
+		private String commit;
+
+		/** Failure description, or null. */
+		private String error;
+
+		/** Fetch tracking update status, or null. */
+		private String fetchStatus;
+
+		/** Progress messages for the build log. */
+		private final List<String> logList = new ArrayList<String>();
+
+		/** Merge status, or null. */
+		private String mergeStatus;
+
+		/** Push status, or null. */
+		private String pushStatus;
+
+		/** [ operation : millis ] for operations which ran, in order. */
+		private final Map<String, Long> timeMap = new LinkedHashMap<String, Long>();
+
+		public String getCommit() {
+			return commit;
+		}
+
+		public String getError() {
+			return error;
+		}
+
+		public String getFetchStatus() {
+			return fetchStatus;
+		}
+
+		public List<String> getLogList() {
+			return logList;
+		}
+
+		public String getMergeStatus() {
+			return mergeStatus;
+		}
+
+		public String getPushStatus() {
+			return pushStatus;
+		}
+
+		/**
+		 * Duration of each operation which ran: commit, update, push.
+		 *
+		 * @return [ operation : millis ]
+		 */
+		public Map<String, Long> getTimeMap() {
+			return timeMap;
+		}
+
+		/**
+		 * All operations succeeded.
+		 */
+		public boolean isSuccess() {
+			return error == null;
+		}
+
+		void log(final String text) {
+			logList.add(text);
+		}
+
+		/**
+		 * Show progress in the build log.
+		 */
+		public void log(final BuildLogger logger) {
+			for (final String text : logList) {
+				logger.logTab(text);
+			}
+			if (error != null) {
+				logger.logErr(error);
+			}
+		}
+
+		Report fail(final String error) {
+			this.error = error;
+			return this;
+		}
+
+		void time(final String operation, final long start) {
+			timeMap.put(operation, System.currentTimeMillis() - start);
+		}
+
+	}
+
+	private static final long serialVersionUID = 1L;
+
+	private final String localBranch;
+
+	/** Node mirror path, or null for direct remote access. */
+	private final String mirrorPath;
+
+	/** Commit file pattern, or null for no commit. */
+	private final String pattern;
+
+	private final PersonIdent person;
+
+	private final String remoteBranch;
+
+	private final String remoteName;
+
+	private final String remoteURI;
+
+	/** Perform push. */
+	private final boolean shouldPush;
+
+	/** Perform fetch and merge. */
+	private final boolean shouldUpdate;
+
+	public PluginScmBatch( //
+			final String pattern, //
+			final PersonIdent person, //
+			final String localBranch, //
+			final String remoteName, //
+			final String remoteBranch, //
+			final String remoteURI, //
+			final String mirrorPath, //
+			final boolean shouldUpdate, //
+			final boolean shouldPush //
+	) {
+		this.pattern = pattern;
+		this.person = person;
+		this.localBranch = localBranch;
+		this.remoteName = remoteName;
+		this.remoteBranch = remoteBranch;
+		this.remoteURI = remoteURI;
+		this.mirrorPath = mirrorPath;
+		this.shouldUpdate = shouldUpdate;
+		this.shouldPush = shouldPush;
+	}
+
+	/**
+	 * Add and commit a file, if it was changed.
+	 */
+	private void commit(final File basedir, final Report report) {
+
+		final Status status = PluginScmGit.doStatus(basedir);
+
+		if (!status.getModified().contains(pattern)) {
+			report.log("no change: " + pattern);
+			return;
+		}
+
+		PluginScmGit.doAdd(basedir, pattern);
+		report.log("added: " + pattern);
+
+		final String commitMessage = "[cascade]" + " " + pattern;
+
+		final RevCommit commitResult = PluginScmGit.doCommit(basedir, person,
+				commitMessage);
+
+		report.commit = commitResult.name();
+		report.log("commit: " + report.commit);
+
+	}
+
+	public Report invoke(final File basedir, final VirtualChannel channel)
+			throws IOException, InterruptedException {
+
+		final Report report = new Report();
+
+		if (pattern != null) {
+			final long time = System.currentTimeMillis();
+			commit(basedir, report);
+			report.time("commit", time);
+		}
+
+		if (shouldUpdate) {
+			final long time = System.currentTimeMillis();
+			final boolean isUpdated = update(basedir, report);
+			report.time("update", time);
+			if (!isUpdated) {
+				return report;
+			}
+		}
+
+		if (shouldPush) {
+			final long time = System.currentTimeMillis();
+			push(basedir, report);
+			report.time("push", time);
+		}
+
+		return report;
+
+	}
+
+	/**
+	 * Transmit local branch into remote.
+	 */
+	private boolean push(final File basedir, final Report report) {
+
+		final RefSpec pushSpec = PluginScmGit.refPush(localBranch,
+				remoteBranch);
+
+		final Iterable<PushResult> pushResultList = PluginScmGit.doPush(
+				basedir, remoteName, pushSpec);
+
+		final PushResult pushResult = pushResultList.iterator().next();
+
+		final String refHeads = PluginScmGit.refHeads(remoteBranch);
+
+		final RemoteRefUpdate remoteUpdate = pushResult
+				.getRemoteUpdate(refHeads);
+
+		final RemoteRefUpdate.Status pushStatus = remoteUpdate.getStatus();
+
+		report.pushStatus = pushStatus.toString();
+		report.log("push status: " + pushStatus);
+
+		if (!PluginScmGit.isSuccess(pushStatus)) {
+			report.fail("push failure: " + pushStatus);
+			return false;
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Fetch remote branch and merge it into local.
+	 */
+	private boolean update(final File basedir, final Report report) {
+
+		final String localBranchCurrent = PluginScmGit.branch(basedir);
+
+		if (!localBranchCurrent.equals(localBranch)) {
+			report.fail("branch mismatch: " + localBranchCurrent + "/"
+					+ localBranch);
+			return false;
+		}
+
+		/** Spec for the fetch mapping. */
+		final RefSpec fetchSpec = PluginScmGit.refFetch(remoteBranch,
+				remoteName, remoteBranch);
+
+		final FetchResult fetchResult;
+		if (mirrorPath == null) {
+			fetchResult = PluginScmGit.doFetch(basedir, remoteName, fetchSpec);
+		} else {
+			fetchResult = PluginScmGitMirror.doFetch(basedir, remoteURI,
+					fetchSpec, new File(mirrorPath));
+		}
+
+		/** Spec of the head of the remote branch. */
+		final String refHead = PluginScmGit.refHeads(remoteBranch);
+
+		/** Spec of the head of the local remote tracking branch. */
+		final String refRemote = PluginScmGit.refRemotes(remoteName,
+				remoteBranch);
+
+		final TrackingRefUpdate trackingUpdate = fetchResult
+				.getTrackingRefUpdate(refRemote);
+
+		if (trackingUpdate == null) {
+			report.fetchStatus = "no update";
+			report.log("fetch status: " + report.fetchStatus);
+			return true;
+		}
+
+		final RefUpdate.Result fetchStatus = trackingUpdate.getResult();
+		report.fetchStatus = fetchStatus.toString();
+		report.log("fetch status: " + fetchStatus);
+		if (fetchStatus == RefUpdate.Result.NO_CHANGE) {
+			return true;
+		}
+
+		/** Reference to head of the remote branch. */
+		final Ref remoteHead = fetchResult.getAdvertisedRef(refHead);
+
+		final ObjectId commit = remoteHead.getObjectId();
+
+		final MergeResult mergeResult = PluginScmGit.doMerge(basedir, commit);
+
+		final MergeStatus mergeStatus = mergeResult.getMergeStatus();
+		report.mergeStatus = mergeStatus.toString();
+		report.log("merge status: " + mergeStatus);
+
+		if (!mergeStatus.isSuccessful()) {
+			report.fail("merge failure: " + mergeStatus);
+			return false;
+		}
+
+		return true;
+
+	}
+
+}
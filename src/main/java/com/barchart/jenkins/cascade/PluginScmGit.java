@@ -44,8 +44,12 @@ public class PluginScmGit {
 	 */
 	public static String branch(final File workspace) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.getRepository().getBranch();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.getRepository().getBranch();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -56,8 +60,12 @@ public class PluginScmGit {
 	 */
 	public static String branchSpec(final File workspace) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.getRepository().getFullBranch();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.getRepository().getFullBranch();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -68,8 +76,12 @@ public class PluginScmGit {
 	 */
 	public static DirCache doAdd(final File workspace, final String pattern) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.add().addFilepattern(pattern).call();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.add().addFilepattern(pattern).call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -82,17 +94,22 @@ public class PluginScmGit {
 			final String localBranch, final String remoteName,
 			final String remoteBranch) {
 		try {
-			final Git git = Git.open(workspace);
-			final CheckoutCommand command = git.checkout().setName(localBranch)
-					.setForce(true);
-			if (findRef(workspace, localBranch) == null) {
-				command.setCreateBranch(true)
-						.setUpstreamMode(SetupUpstreamMode.TRACK)
-						.setStartPoint(remote(remoteName, remoteBranch)).call();
-			} else {
-				command.call();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				final CheckoutCommand command = git.checkout()
+						.setName(localBranch).setForce(true);
+				if (findRef(workspace, localBranch) == null) {
+					command.setCreateBranch(true)
+							.setUpstreamMode(SetupUpstreamMode.TRACK)
+							.setStartPoint(remote(remoteName, remoteBranch))
+							.call();
+				} else {
+					command.call();
+				}
+				return command.getResult();
+			} finally {
+				PluginScmGitCache.release(workspace);
 			}
-			return command.getResult();
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -103,8 +120,12 @@ public class PluginScmGit {
 	 */
 	public static Set<String> doClean(final File workspace) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.clean().call();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.clean().call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -112,15 +133,22 @@ public class PluginScmGit {
 
 	/**
 	 * Destroy workspace and clone from scratch.
+	 * <p>
+	 * Returned repository is closed, use {@link PluginScmGitCache} to access
+	 * it.
 	 */
 	public static Git doClone(final File workspace, final String uri,
 			final String remote) {
 		try {
+			PluginScmGitCache.evict(workspace);
 			FileUtils.delete(workspace, FileUtils.RECURSIVE
 					| FileUtils.IGNORE_ERRORS);
 			FileUtils.mkdirs(workspace, true);
-			return Git.cloneRepository().setURI(uri).setRemote(remote)
-					.setNoCheckout(true).setDirectory(workspace).call();
+			final Git git = Git.cloneRepository().setURI(uri)
+					.setRemote(remote).setNoCheckout(true)
+					.setDirectory(workspace).call();
+			git.getRepository().close();
+			return git;
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -132,12 +160,16 @@ public class PluginScmGit {
 	public static RevCommit doCommit(final File workspace,
 			final PersonIdent person, final String message) {
 		try {
-			final Git git = Git.open(workspace);
-			final CommitCommand command = git.commit();
-			if (person != null) {
-				command.setAuthor(person).setCommitter(person);
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				final CommitCommand command = git.commit();
+				if (person != null) {
+					command.setAuthor(person).setCommitter(person);
+				}
+				return command.setMessage(message).call();
+			} finally {
+				PluginScmGitCache.release(workspace);
 			}
-			return command.setMessage(message).call();
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -149,8 +181,12 @@ public class PluginScmGit {
 	public static FetchResult doFetch(final File workspace,
 			final String remote, final RefSpec spec) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.fetch().setRemote(remote).setRefSpecs(spec).call();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.fetch().setRemote(remote).setRefSpecs(spec).call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -162,8 +198,12 @@ public class PluginScmGit {
 	public static MergeResult doMerge(final File workspace,
 			final ObjectId commit) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.merge().include(commit).call();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.merge().include(commit).call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -174,8 +214,12 @@ public class PluginScmGit {
 	 */
 	public static PullResult doPull(final File workspace) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.pull().call();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.pull().call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -187,8 +231,12 @@ public class PluginScmGit {
 	public static Iterable<PushResult> doPush(final File workspace,
 			final String remote, final RefSpec spec) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.push().setRemote(remote).setRefSpecs(spec).call();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.push().setRemote(remote).setRefSpecs(spec).call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -199,8 +247,12 @@ public class PluginScmGit {
 	 */
 	public static boolean doRepoTest(final File workspace) {
 		try {
-			final Git git = Git.open(workspace);
-			return true;
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return true;
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final RepositoryNotFoundException e) {
 			return false;
 		} catch (final Throwable e) {
@@ -213,8 +265,29 @@ public class PluginScmGit {
 	 */
 	public static Ref doReset(final File workspace) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.reset().setMode(ResetType.HARD).call();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.reset().setMode(ResetType.HARD).call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
+		} catch (final Throwable e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Reset current branch, index and work tree to a commit.
+	 */
+	public static Ref doReset(final File workspace, final ObjectId commit) {
+		try {
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.reset().setMode(ResetType.HARD)
+						.setRef(commit.name()).call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -225,8 +298,12 @@ public class PluginScmGit {
 	 */
 	public static Status doStatus(final File workspace) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.status().call();
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.status().call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -237,8 +314,12 @@ public class PluginScmGit {
 	 */
 	public static Ref findRef(final File workspace, final String name) {
 		try {
-			final Git git = Git.open(workspace);
-			return git.getRepository().getRef(name);
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				return git.getRepository().getRef(name);
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
 		} catch (final Throwable e) {
 			throw new RuntimeException(e);
 		}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Node-local cache of open git repositories, one per workspace.
+ * <p>
+ * Handles are reference counted; repositories which are not in use are closed
+ * after an idle timeout, checked on open, on release and periodically.
+ * Repositories are never closed while in use. Lives in the JVM which owns
+ * the workspace, since
+ * {@link PluginScmGit} is invoked from remote file callables.
+ *
+ * @author Andrei Pozolotin
+ */
+public class PluginScmGitCache {
+
+	/**
+	 * Cached repository and its usage.
+	 */
+	private static class Entry {
+
+		/** Number of current users. */
+		int count;
+
+		/** Evicted while in use, close on last release. */
+		boolean isEvicted;
+
+		final Repository repository;
+
+		/** Last release time, millis. */
+		long time;
+
+		Entry(final Repository repository) {
+			this.repository = repository;
+		}
+
+		/** Repository folder is still present. */
+		boolean isValid() {
+			return repository.getDirectory().isDirectory();
+		}
+
+	}
+
+	/**
+	 * Close unused repositories after this time.
+	 */
+	public static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+	/**
+	 * [ workspace path : repository entry ]
+	 */
+	private static final Map<String, Entry> entryMap = new HashMap<String, Entry>();
+
+	/**
+	 * Periodic idle sweep, started with first cached repository.
+	 */
+	private static Timer sweepTimer;
+
+	/**
+	 * Close and forget repository, such as before workspace delete.
+	 * <p>
+	 * Repository which is still in use is closed on its last release.
+	 */
+	public static synchronized void evict(final File workspace) {
+		final String key = key(workspace);
+		final Entry entry = entryMap.get(key);
+		if (entry == null) {
+			return;
+		}
+		if (entry.count > 0) {
+			entry.isEvicted = true;
+			return;
+		}
+		entryMap.remove(key);
+		entry.repository.close();
+	}
+
+	private static void ensureTimer() {
+		if (sweepTimer != null) {
+			return;
+		}
+		sweepTimer = new Timer("cascade git cache sweep", true);
+		sweepTimer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				sweep();
+			}
+		}, IDLE_TIMEOUT, IDLE_TIMEOUT);
+	}
+
+	private static String key(final File workspace) {
+		return workspace.getAbsolutePath();
+	}
+
+	/**
+	 * Obtain cached or open new repository; must be paired with
+	 * {@link #release(File)}.
+	 */
+	public static synchronized Git open(final File workspace)
+			throws IOException {
+		sweep();
+		final String key = key(workspace);
+		Entry entry = entryMap.get(key);
+		if (entry != null && entry.count == 0
+				&& (entry.isEvicted || !entry.isValid())) {
+			entryMap.remove(key);
+			entry.repository.close();
+			entry = null;
+		}
+		if (entry == null) {
+			entry = new Entry(Git.open(workspace).getRepository());
+			entryMap.put(key, entry);
+			ensureTimer();
+		}
+		entry.count++;
+		return new Git(entry.repository);
+	}
+
+	/**
+	 * Return repository obtained with {@link #open(File)}.
+	 */
+	public static synchronized void release(final File workspace) {
+		final String key = key(workspace);
+		final Entry entry = entryMap.get(key);
+		if (entry != null && entry.count > 0) {
+			entry.count--;
+			entry.time = System.currentTimeMillis();
+			if (entry.count == 0 && entry.isEvicted) {
+				entryMap.remove(key);
+				entry.repository.close();
+			}
+		}
+		sweep();
+	}
+
+	/**
+	 * Number of cached repositories.
+	 */
+	public static synchronized int size() {
+		return entryMap.size();
+	}
+
+	/**
+	 * Close repositories which are idle for too long.
+	 */
+	public static synchronized void sweep() {
+		final long time = System.currentTimeMillis();
+		final Iterator<Entry> iterator = entryMap.values().iterator();
+		while (iterator.hasNext()) {
+			final Entry entry = iterator.next();
+			if (entry.count == 0 && time - entry.time > IDLE_TIMEOUT) {
+				iterator.remove();
+				entry.repository.close();
+			}
+		}
+	}
+
+	private PluginScmGitCache() {
+	}
+
+}
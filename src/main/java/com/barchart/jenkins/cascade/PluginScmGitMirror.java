@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * Shared bare mirror of a remote repository, one per remote URI on a node.
+ * <p>
+ * Member workspaces borrow mirror objects via git alternates, so only the
+ * mirror talks to the remote for fetch, and workspace clones are local.
+ *
+ * @author Andrei Pozolotin
+ */
+public class PluginScmGitMirror {
+
+	/**
+	 * Mirror refs: all remote branches and tags.
+	 */
+	public static final RefSpec MIRROR_SPEC = new RefSpec(
+			"+refs/*:refs/*");
+
+	/**
+	 * [ mirror path : mirror lock ]
+	 */
+	private static final ConcurrentMap<String, Object> lockMap = new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * Create workspace repository which uses mirror object store.
+	 * <p>
+	 * Produces same layout as no-checkout clone: remote config and remote
+	 * tracking branches, without work tree.
+	 */
+	public static void doClone(final File workspace, final String uri,
+			final String remote, final File mirror) {
+		try {
+
+			/** Remote tracking branches of the workspace. */
+			final RefSpec trackSpec = new RefSpec("+" + Constants.R_HEADS
+					+ "*:" + Constants.R_REMOTES + remote + "/*");
+
+			update(mirror, uri);
+
+			PluginScmGitCache.evict(workspace);
+			FileUtils.delete(workspace, FileUtils.RECURSIVE
+					| FileUtils.IGNORE_ERRORS);
+			FileUtils.mkdirs(workspace, true);
+
+			final Repository repository = Git.init().setDirectory(workspace)
+					.call().getRepository();
+
+			try {
+
+				final File alternates = new File(repository.getDirectory(),
+						"objects/info/alternates");
+				FileUtils.mkdirs(alternates.getParentFile(), true);
+				final OutputStream output = new FileOutputStream(alternates);
+				try {
+					output.write(Constants.encode(new File(mirror, "objects")
+							.getAbsolutePath() + "\n"));
+				} finally {
+					output.close();
+				}
+
+				final StoredConfig config = repository.getConfig();
+				final RemoteConfig remoteConfig = new RemoteConfig(config,
+						remote);
+				remoteConfig.addURI(new URIish(uri));
+				remoteConfig.addFetchRefSpec(trackSpec);
+				remoteConfig.update(config);
+				config.save();
+
+			} finally {
+				repository.close();
+			}
+
+			/** Objects are present in mirror, only refs are copied. */
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+				git.fetch().setRemote(mirror.getAbsolutePath())
+						.setRefSpecs(trackSpec).call();
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
+
+		} catch (final Throwable e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Refresh mirror, then fetch workspace from mirror.
+	 */
+	public static FetchResult doFetch(final File workspace,
+			final String uri, final RefSpec spec, final File mirror) {
+		update(mirror, uri);
+		return PluginScmGit.doFetch(workspace, mirror.getAbsolutePath(), spec);
+	}
+
+	private static Object lock(final File mirror) {
+		final String key = mirror.getAbsolutePath();
+		final Object lock = new Object();
+		final Object past = lockMap.putIfAbsent(key, lock);
+		return past == null ? lock : past;
+	}
+
+	/**
+	 * Create or refresh bare mirror from remote.
+	 */
+	public static void update(final File mirror, final String uri) {
+		synchronized (lock(mirror)) {
+			try {
+				if (!new File(mirror, "objects").isDirectory()) {
+					FileUtils.mkdirs(mirror, true);
+					Git.init().setBare(true).setDirectory(mirror).call()
+							.getRepository().close();
+				}
+				final Git git = PluginScmGitCache.open(mirror);
+				try {
+					git.fetch().setRemote(uri).setRefSpecs(MIRROR_SPEC)
+							.setRemoveDeletedRefs(true).call();
+				} finally {
+					PluginScmGitCache.release(mirror);
+				}
+			} catch (final Throwable e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	private PluginScmGitMirror() {
+	}
+
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.api.CheckoutCommand;
+import org.eclipse.jgit.api.CreateBranchCommand.SetupUpstreamMode;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * Sparse work tree for a single member module.
+ * <p>
+ * Work tree contains member module folder and all pom.xml files of the
+ * repository. Other index entries are marked "assume unchanged" and are not
+ * present on disk, so both jgit and native git, used by release plugin,
+ * consider work tree clean. Index and history stay complete, so commit, tag
+ * and push work as usual.
+ *
+ * @author Andrei Pozolotin
+ */
+public class PluginScmGitSparse {
+
+	/**
+	 * Maven descriptors are always present in sparse work tree.
+	 */
+	public static final String POM_FILE = "pom.xml";
+
+	/**
+	 * Switch to local branch and materialize only member files.
+	 *
+	 * @param modulePath
+	 *            member module path relative to repository root
+	 * @return number of files present in work tree
+	 */
+	public static int doCheckout(final File workspace,
+			final String localBranch, final String remoteName,
+			final String remoteBranch, final String modulePath) {
+		try {
+			final Git git = PluginScmGitCache.open(workspace);
+			try {
+
+				final Repository repository = git.getRepository();
+
+				if (repository.getRef(localBranch) == null) {
+					git.branchCreate().setName(localBranch)
+							.setUpstreamMode(SetupUpstreamMode.TRACK)
+							.setStartPoint(
+									PluginScmGit.remote(remoteName,
+											remoteBranch)).call();
+				}
+
+				/** Switch branch w/o touching work tree. */
+				final RefUpdate headUpdate = repository
+						.updateRef(Constants.HEAD);
+				headUpdate.link(PluginScmGit.refHeads(localBranch));
+
+				/** Load index from branch head w/o touching work tree. */
+				git.reset().setMode(ResetType.MIXED).call();
+
+				return doPrune(git, modulePath);
+
+			} finally {
+				PluginScmGitCache.release(workspace);
+			}
+		} catch (final Throwable e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Mark entries outside of member as unchanged and remove them from work
+	 * tree; restore member entries from index.
+	 *
+	 * @return number of files present in work tree
+	 */
+	private static int doPrune(final Git git, final String modulePath)
+			throws Exception {
+
+		final Repository repository = git.getRepository();
+		final File worktree = repository.getWorkTree();
+
+		final List<String> includeList = new ArrayList<String>();
+
+		final DirCache cache = repository.lockDirCache();
+		try {
+			for (int index = 0; index < cache.getEntryCount(); index++) {
+				final DirCacheEntry entry = cache.getEntry(index);
+				final String path = entry.getPathString();
+				if (isIncluded(path, modulePath)) {
+					entry.setAssumeValid(false);
+					includeList.add(path);
+				} else {
+					entry.setAssumeValid(true);
+					final File file = new File(worktree, path);
+					if (file.exists()) {
+						FileUtils.delete(file, FileUtils.IGNORE_ERRORS);
+					}
+				}
+			}
+			cache.write();
+			cache.commit();
+		} finally {
+			cache.unlock();
+		}
+
+		if (!includeList.isEmpty()) {
+			final CheckoutCommand command = git.checkout();
+			for (final String path : includeList) {
+				command.addPath(path);
+			}
+			command.call();
+		}
+
+		return includeList.size();
+
+	}
+
+	/**
+	 * Sparse work tree needs a cleanup; files absent by design are ignored.
+	 */
+	public static boolean isDirty(final Status status) {
+		return !status.getAdded().isEmpty() //
+				|| !status.getChanged().isEmpty() //
+				|| !status.getConflicting().isEmpty() //
+				|| !status.getModified().isEmpty() //
+				|| !status.getRemoved().isEmpty();
+	}
+
+	/**
+	 * Repository path belongs to sparse work tree of a member.
+	 */
+	public static boolean isIncluded(final String path,
+			final String modulePath) {
+		if (modulePath == null || modulePath.length() == 0) {
+			return true;
+		}
+		if (path.equals(POM_FILE) || path.endsWith("/" + POM_FILE)) {
+			return true;
+		}
+		return path.startsWith(modulePath + "/");
+	}
+
+	private PluginScmGitSparse() {
+	}
+
+}
@@ -24,6 +24,7 @@ import hudson.model.View;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.ArrayList;
@@ -387,23 +388,56 @@ public class PluginUtilities {
 
 	/**
 	 * Parse pom.xml file into maven model.
+	 * <p>
+	 * Uses {@link MavenModelCache} validated by content digest; digest and
+	 * content come in one remote call, content only on cache miss.
 	 */
 	public static Model mavenModel(final FilePath pomFile) throws IOException {
 		try {
 
-			final MavenXpp3Reader xmlReader = new MavenXpp3Reader();
+			final String key = MavenModelCache.key(pomFile);
 
-			final Model model = xmlReader.read(pomFile.read());
+			final MavenModelCache.Snapshot snapshot = pomFile
+					.act(new MavenModelCache.Reader(MavenModelCache.digest(key)));
 
-			ensureFields(model);
+			if (snapshot.text == null) {
+				final Model cached = MavenModelCache.get(key, snapshot.digest);
+				if (cached != null) {
+					return cached;
+				}
+				/** Evicted since digest lookup, read again. */
+				return mavenModel(key,
+						pomFile.act(new MavenModelCache.Reader(null)));
+			}
 
-			return model;
+			return mavenModel(key, snapshot);
 
+		} catch (final IOException e) {
+			throw e;
 		} catch (final Throwable e) {
 			throw new IOException(e);
 		}
 	}
 
+	private static Model mavenModel(final String key,
+			final MavenModelCache.Snapshot snapshot) throws Exception {
+
+		final long time = System.currentTimeMillis();
+
+		final MavenXpp3Reader xmlReader = new MavenXpp3Reader();
+
+		final Model model = xmlReader.read(new StringReader(snapshot.text));
+
+		PluginMetrics.timer("cascade_pom_parse_seconds").observeSince(time);
+
+		ensureFields(model);
+
+		MavenModelCache.put(key, snapshot.digest, model);
+
+		return model;
+
+	}
+
 	/**
 	 * Extract maven model from jenkins project.
 	 */
@@ -464,12 +498,20 @@ public class PluginUtilities {
 
 	/**
 	 * Project pom.xml file.
+	 * 
+	 * @return null, when no workspace.
 	 */
 	public static FilePath mavenPomFile(final MavenModuleSet project) {
 
 		final String relativePath = project.getRootPOM(null);
 
-		final FilePath pomFile = project.getWorkspace().child(relativePath);
+		final FilePath workspace = project.getWorkspace();
+
+		if (workspace == null) {
+			return null;
+		}
+
+		final FilePath pomFile = workspace.child(relativePath);
 
 		return pomFile;
 	}
@@ -497,12 +539,7 @@ public class PluginUtilities {
 	 * Find top level maven jenkins job with a module name.
 	 */
 	public static MavenModuleSet mavenProject(final ModuleName moduleName) {
-		for (final MavenModuleSet project : mavenProjectList()) {
-			if (project.getRootModule().getModuleName().equals(moduleName)) {
-				return project;
-			}
-		}
-		return null;
+		return ProjectRegistry.mavenProject(moduleName);
 	}
 
 	/**
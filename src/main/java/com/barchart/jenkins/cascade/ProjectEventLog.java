@@ -0,0 +1,384 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.joda.time.DateTime;
+import org.joda.time.format.ISODateTimeFormat;
+
+/**
+ * Cascade family event log.
+ * <p>
+ * Ring buffer of recent events, bounded by event count and by text size;
+ * oldest events are discarded first.
+ * <p>
+ * Once attached to a file, events are appended to it one per line, and the
+ * buffer is restored from it after restart. File is rotated by size.
+ *
+ * @author Andrei Pozolotin
+ */
+public class ProjectEventLog {
+
+	/**
+	 * Single log entry.
+	 */
+	public static class Event {
+
+		private final String text;
+		private final long time;
+
+		public Event(final long time, final String text) {
+			this.time = time;
+			this.text = text;
+		}
+
+		public String text() {
+			return text;
+		}
+
+		public long time() {
+			return time;
+		}
+
+		@Override
+		public String toString() {
+			return new DateTime(time) + " " + text;
+		}
+
+	}
+
+	/**
+	 * Event log file name in layout project folder.
+	 */
+	public static final String FILE_NAME = "cascade-event.log";
+
+	/**
+	 * Maximum event log file size before rotation, bytes.
+	 */
+	public static final long LIMIT_FILE = 4 * 1024 * 1024;
+
+	/**
+	 * Maximum number of events.
+	 */
+	public static final int LIMIT_COUNT = 1000;
+
+	/**
+	 * Maximum total event text size, chars.
+	 */
+	public static final int LIMIT_SIZE = 256 * 1024;
+
+	protected final static Logger log = Logger.getLogger(ProjectEventLog.class
+			.getName());
+
+	/***
+	 * [ familyID : event log ]
+	 */
+	private static final ConcurrentMap<String, ProjectEventLog> logMap = new ConcurrentHashMap<String, ProjectEventLog>();
+
+	/**
+	 * Default number of events on a page.
+	 */
+	public static final int PAGE_SIZE = 50;
+
+	/**
+	 * Restore event from a file line.
+	 */
+	public static Event decode(final String line) {
+		final int index = line.indexOf('\t');
+		if (index <= 0) {
+			return null;
+		}
+		final long time;
+		try {
+			time = Long.parseLong(line.substring(0, index));
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+		final StringBuilder text = new StringBuilder();
+		for (int k = index + 1; k < line.length(); k++) {
+			final char c = line.charAt(k);
+			if (c == '\\' && k + 1 < line.length()) {
+				k++;
+				final char e = line.charAt(k);
+				text.append(e == 'n' ? '\n' : e == 'r' ? '\r' : e);
+			} else {
+				text.append(c);
+			}
+		}
+		return new Event(time, text.toString());
+	}
+
+	/**
+	 * Render event as a single file line.
+	 */
+	public static String encode(final Event event) {
+		return event.time() + "\t"
+				+ event.text().replace("\\", "\\\\").replace("\n", "\\n")
+						.replace("\r", "\\r") + "\n";
+	}
+
+	/**
+	 * Produce existing or create new family event log.
+	 */
+	public static ProjectEventLog ensure(final String familyID) {
+		ProjectEventLog eventLog = logMap.get(familyID);
+		if (eventLog == null) {
+			eventLog = new ProjectEventLog(familyID);
+			logMap.putIfAbsent(familyID, eventLog);
+			eventLog = logMap.get(familyID);
+		}
+		return eventLog;
+	}
+
+	/** Number of stored events. */
+	private int count;
+
+	private final String familyID;
+
+	/** Event log file, or null when not attached. */
+	private File file;
+
+	/** Index of the oldest event. */
+	private int head;
+
+	/** Total stored text size, chars. */
+	private int size;
+
+	private final Event[] ring = new Event[LIMIT_COUNT];
+
+	public ProjectEventLog(final String familyID) {
+		this.familyID = familyID;
+	}
+
+	/**
+	 * Append new event, discard oldest events over the limits.
+	 */
+	public synchronized Event append(final String text) {
+		final String entry = text.length() > LIMIT_SIZE ? text.substring(0,
+				LIMIT_SIZE) : text;
+		final Event event = new Event(System.currentTimeMillis(), entry);
+		store(event);
+		if (file != null) {
+			write(event);
+		}
+		return event;
+	}
+
+	/**
+	 * Attach log file: restore events from the file, then persist events
+	 * which are only present in memory.
+	 */
+	public synchronized void attach(final File file) {
+		if (this.file != null) {
+			return;
+		}
+		final List<Event> pendingList = page(0, count);
+		count = 0;
+		head = 0;
+		size = 0;
+		read(file);
+		this.file = file;
+		for (int index = pendingList.size() - 1; index >= 0; index--) {
+			final Event event = pendingList.get(index);
+			store(event);
+			write(event);
+		}
+	}
+
+	/**
+	 * Event log is persisted in a file.
+	 */
+	public synchronized boolean isAttached() {
+		return file != null;
+	}
+
+	private void read(final File file) {
+		if (!file.exists()) {
+			return;
+		}
+		try {
+			final BufferedReader reader = new BufferedReader(
+					new InputStreamReader(new FileInputStream(file), "UTF-8"));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					final Event event = decode(line);
+					if (event != null) {
+						store(event);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (final IOException e) {
+			log.log(Level.WARNING, "Event log read failure: " + file, e);
+		}
+	}
+
+	private void store(final Event event) {
+		final String entry = event.text();
+		while (count > 0
+				&& (count == LIMIT_COUNT || size + entry.length() > LIMIT_SIZE)) {
+			discard();
+		}
+		ring[(head + count) % LIMIT_COUNT] = event;
+		count++;
+		size += entry.length();
+	}
+
+	/**
+	 * Append event to the file, rotate file over size limit.
+	 */
+	private void write(final Event event) {
+		try {
+			if (file.length() > LIMIT_FILE) {
+				final File past = new File(file.getPath() + ".1");
+				past.delete();
+				file.renameTo(past);
+			}
+			final Writer writer = new OutputStreamWriter(new FileOutputStream(
+					file, true), "UTF-8");
+			try {
+				writer.write(encode(event));
+			} finally {
+				writer.close();
+			}
+		} catch (final IOException e) {
+			log.log(Level.WARNING, "Event log write failure: " + file, e);
+		}
+	}
+
+	/**
+	 * Import legacy event log text, formerly stored in job config: one event
+	 * per line, prefixed by event time; lines without time continue previous
+	 * event.
+	 *
+	 * @return number of imported events
+	 */
+	public synchronized int migrate(final String legacy) {
+		final List<Event> eventList = new ArrayList<Event>();
+		for (final String line : legacy.split("\n")) {
+			final int index = line.indexOf(' ');
+			Long time = null;
+			if (index > 0) {
+				try {
+					time = ISODateTimeFormat.dateTimeParser().parseMillis(
+							line.substring(0, index));
+				} catch (final IllegalArgumentException e) {
+					time = null;
+				}
+			}
+			if (time != null) {
+				eventList.add(new Event(time, line.substring(index + 1)));
+			} else if (!eventList.isEmpty()) {
+				final Event past = eventList.remove(eventList.size() - 1);
+				eventList.add(new Event(past.time(), past.text() + "\n" + line));
+			} else {
+				eventList.add(new Event(System.currentTimeMillis(), line));
+			}
+		}
+		for (final Event event : eventList) {
+			store(event);
+			if (file != null) {
+				write(event);
+			}
+		}
+		return eventList.size();
+	}
+
+	/**
+	 * Follow log file moved with its folder, such as by project rename;
+	 * events in memory are already persisted in it.
+	 */
+	public synchronized void relocate(final File file) {
+		if (this.file == null) {
+			attach(file);
+			return;
+		}
+		this.file = file;
+	}
+
+	/**
+	 * Number of stored events.
+	 */
+	public synchronized int count() {
+		return count;
+	}
+
+	private void discard() {
+		size -= ring[head].text().length();
+		ring[head] = null;
+		head = (head + 1) % LIMIT_COUNT;
+		count--;
+	}
+
+	/**
+	 * Cascade family served by this log.
+	 */
+	public String familyID() {
+		return familyID;
+	}
+
+	/**
+	 * Events of a page, newest first.
+	 *
+	 * @param page
+	 *            page index, zero for most recent events
+	 */
+	public synchronized List<Event> page(final int page, final int pageSize) {
+		final List<Event> list = new ArrayList<Event>(pageSize);
+		final int start = count - 1 - page * pageSize;
+		for (int index = start; index > start - pageSize && index >= 0; index--) {
+			list.add(ring[(head + index) % LIMIT_COUNT]);
+		}
+		return list;
+	}
+
+	/**
+	 * Number of pages of a given size.
+	 */
+	public synchronized int pageCount(final int pageSize) {
+		return Math.max(1, (count + pageSize - 1) / pageSize);
+	}
+
+	/**
+	 * Render page as text, newest event first.
+	 */
+	public String render(final int page, final int pageSize) {
+		final StringBuilder text = new StringBuilder();
+		for (final Event event : page(page, pageSize)) {
+			if (text.length() > 0) {
+				text.append('\n');
+			}
+			text.append(event);
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Total stored text size, chars.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+}
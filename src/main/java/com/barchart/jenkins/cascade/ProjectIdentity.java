@@ -9,7 +9,6 @@ package com.barchart.jenkins.cascade;
 
 import hudson.Extension;
 import hudson.maven.ModuleName;
-import hudson.maven.MavenModule;
 import hudson.maven.MavenModuleSet;
 import hudson.model.Action;
 import hudson.model.JobProperty;
@@ -20,6 +19,7 @@ import hudson.model.Job;
 import hudson.model.ListView;
 import hudson.model.View;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -28,7 +28,6 @@ import java.util.UUID;
 
 import jenkins.model.Jenkins;
 
-import org.joda.time.DateTime;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 /**
@@ -111,6 +110,20 @@ public class ProjectIdentity extends JobProperty<AbstractProject<?, ?>>
 	@SuppressWarnings("rawtypes")
 	public static AbstractProject abstractProject(final ProjectIdentity one,
 			final Mode mode) {
+		switch (mode) {
+		case ROLE_FAMILY_PROJECT:
+			return ProjectRegistry.find(one);
+		case ROLE_FAMILY:
+			for (final AbstractProject project : ProjectRegistry
+					.familyProjectList(one.getFamilyID())) {
+				if (mode.equals(one, identity(project))) {
+					return project;
+				}
+			}
+			return null;
+		default:
+			break;
+		}
 		for (final TopLevelItem item : PluginUtilities.projectList()) {
 			if (item instanceof AbstractProject) {
 				final AbstractProject project = (AbstractProject) item;
@@ -233,16 +246,7 @@ public class ProjectIdentity extends JobProperty<AbstractProject<?, ?>>
 	 */
 	@SuppressWarnings("rawtypes")
 	public static List<AbstractProject> familyProjectList(final String familyID) {
-		final List<AbstractProject> memberList = new ArrayList<AbstractProject>();
-		for (final TopLevelItem item : PluginUtilities.projectList()) {
-			if (item instanceof AbstractProject) {
-				final AbstractProject project = (AbstractProject) item;
-				if (familyID.equals(familyID(project))) {
-					memberList.add(project);
-				}
-			}
-		}
-		return memberList;
+		return ProjectRegistry.familyProjectList(familyID);
 	}
 
 	/**
@@ -335,13 +339,17 @@ public class ProjectIdentity extends JobProperty<AbstractProject<?, ?>>
 
 		final List<MavenModuleSet> memberList = new ArrayList<MavenModuleSet>();
 
-		for (final MavenModuleSet mavenProject : PluginUtilities
-				.mavenProjectList()) {
+		for (final AbstractProject<?, ?> project : ProjectRegistry
+				.familyProjectList(familyID)) {
+
+			if (!(project instanceof MavenModuleSet)) {
+				continue;
+			}
 
-			final ProjectIdentity targetID = identity(mavenProject);
+			final ProjectIdentity targetID = identity(project);
 
 			if (sourceID.equalsRoleFamily(targetID)) {
-				memberList.add(mavenProject);
+				memberList.add((MavenModuleSet) project);
 			}
 
 		}
@@ -351,7 +359,12 @@ public class ProjectIdentity extends JobProperty<AbstractProject<?, ?>>
 
 	private final String familyID;
 
-	private String log = new DateTime() + " " + "Log started.";
+	/**
+	 * Legacy event log, no longer stored in job config, see
+	 * {@link ProjectEventLog}.
+	 */
+	@Deprecated
+	private String log;
 
 	private final String projectID;
 
@@ -444,6 +457,21 @@ public class ProjectIdentity extends JobProperty<AbstractProject<?, ?>>
 		return false;
 	}
 
+	/**
+	 * Cascade family event log, persisted in layout project folder.
+	 */
+	public ProjectEventLog eventLog() {
+		final ProjectEventLog eventLog = ProjectEventLog.ensure(familyID);
+		if (!eventLog.isAttached()) {
+			final MavenModuleSet layoutProject = layoutProject();
+			if (layoutProject != null) {
+				eventLog.attach(new File(layoutProject.getRootDir(),
+						ProjectEventLog.FILE_NAME));
+			}
+		}
+		return eventLog;
+	}
+
 	/**
 	 * Find all cascade family projects.
 	 */
@@ -549,17 +577,10 @@ public class ProjectIdentity extends JobProperty<AbstractProject<?, ?>>
 	}
 
 	/**
-	 * Cascade event log.
-	 */
-	public String log() {
-		return log;
-	}
-
-	/**
-	 * Append to cascade event log.
+	 * Append to cascade family event log.
 	 */
 	public void log(final String text) {
-		log = log + "\n" + new DateTime() + " " + text;
+		eventLog().append(text);
 	}
 
 	/**
@@ -573,23 +594,7 @@ public class ProjectIdentity extends JobProperty<AbstractProject<?, ?>>
 	 * Find member project with module name.
 	 */
 	public MavenModuleSet memberProject(final ModuleName moduleName) {
-
-		final List<MavenModuleSet> memberProjectList = memberProjectList();
-
-		for (final MavenModuleSet memberProject : memberProjectList) {
-
-			final MavenModule memberModule = memberProject.getRootModule();
-
-			final ModuleName memberName = memberModule.getModuleName();
-
-			if (moduleName.equals(memberName)) {
-				return memberProject;
-			}
-
-		}
-
-		return null;
-
+		return ProjectRegistry.memberProject(getFamilyID(), moduleName);
 	}
 
 	/**
@@ -599,6 +604,24 @@ public class ProjectIdentity extends JobProperty<AbstractProject<?, ?>>
 		return memberProjectList(getFamilyID());
 	}
 
+	/**
+	 * Move legacy event log from job config into family event log, once.
+	 *
+	 * @return true, when job config must be saved
+	 */
+	public boolean migrateLog() {
+		if (log == null) {
+			return false;
+		}
+		final ProjectEventLog eventLog = eventLog();
+		if (!eventLog.isAttached()) {
+			return false;
+		}
+		eventLog.migrate(log);
+		log = null;
+		return true;
+	}
+
 	/**
 	 * Find project role.
 	 */
@@ -606,6 +629,15 @@ public class ProjectIdentity extends JobProperty<AbstractProject<?, ?>>
 		return ProjectRole.from(projectRole);
 	}
 
+	/**
+	 * Keep project registry current when property is attached to a project.
+	 */
+	@Override
+	protected void setOwner(final AbstractProject<?, ?> owner) {
+		super.setOwner(owner);
+		ProjectRegistry.register(owner, this);
+	}
+
 	/**
 	 * Render project identity as unique string.
 	 */
@@ -12,6 +12,8 @@ import hudson.model.Item;
 import hudson.model.AbstractProject;
 import hudson.model.listeners.ItemListener;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,6 +28,82 @@ public class ProjectListener extends ItemListener {
 	private final static Logger log = Logger.getLogger(ProjectListener.class
 			.getName());
 
+	/**
+	 * Index new family projects.
+	 */
+	@Override
+	public void onCreated(final Item item) {
+		if (item instanceof AbstractProject) {
+			ProjectRegistry.register((AbstractProject<?, ?>) item);
+		}
+	}
+
+	/**
+	 * Remove deleted family projects from the index.
+	 */
+	@Override
+	public void onDeleted(final Item item) {
+		if (item instanceof AbstractProject) {
+			ProjectRegistry.unregister((AbstractProject<?, ?>) item);
+		}
+	}
+
+	/**
+	 * Build project index after jenkins loaded all projects, then move legacy
+	 * event logs from job config into family event log.
+	 */
+	@Override
+	public void onLoaded() {
+		ProjectRegistry.rebuild();
+		for (final Item item : PluginUtilities.projectList()) {
+			if (!(item instanceof AbstractProject)) {
+				continue;
+			}
+			final ProjectIdentity identity = ProjectIdentity
+					.identity((AbstractProject<?, ?>) item);
+			if (identity == null || !identity.migrateLog()) {
+				continue;
+			}
+			try {
+				((AbstractProject<?, ?>) item).save();
+			} catch (final IOException e) {
+				log.log(Level.SEVERE, "Legacy event log migration failure: "
+						+ item.getFullName(), e);
+			}
+		}
+	}
+
+	/**
+	 * Re-index renamed family projects, follow moved event log file.
+	 */
+	@Override
+	public void onRenamed(final Item item, final String oldName,
+			final String newName) {
+		if (item instanceof AbstractProject) {
+			final AbstractProject<?, ?> project = (AbstractProject<?, ?>) item;
+			ProjectRegistry.unregister(project);
+			ProjectRegistry.register(project);
+			/** Event log file moved with layout project folder. */
+			final ProjectIdentity identity = ProjectIdentity.identity(project);
+			if (identity != null && identity.role() == ProjectRole.LAYOUT) {
+				ProjectEventLog.ensure(identity.getFamilyID()).relocate(
+						new File(project.getRootDir(),
+								ProjectEventLog.FILE_NAME));
+			}
+		}
+	}
+
+	/**
+	 * Re-index family projects after configuration change.
+	 */
+	@Override
+	public void onUpdated(final Item item) {
+		if (item instanceof AbstractProject) {
+			ProjectRegistry.unregister((AbstractProject<?, ?>) item);
+			ProjectRegistry.register((AbstractProject<?, ?>) item);
+		}
+	}
+
 	/**
 	 * Provide new identity for layout projects.
 	 * <p>
@@ -54,6 +132,10 @@ public class ProjectListener extends ItemListener {
 			/** Erase identity of target project. */
 			targetProject.removeProperty(ProjectIdentity.class);
 
+			/** Target was loaded with source identity, restore source entry. */
+			ProjectRegistry.unregister(targetProject);
+			ProjectRegistry.register(sourceProject);
+
 			switch (identity.role()) {
 			case LAYOUT:
 				/** Provide new identity. */
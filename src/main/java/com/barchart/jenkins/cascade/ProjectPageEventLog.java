@@ -9,11 +9,18 @@ package com.barchart.jenkins.cascade;
 
 /**
  * Show cascade event log on a member project page.
+ * <p>
+ * Renders one page of events at a time, selected by {@link #PAGE_PARAM}.
  * 
  * @author Andrei Pozolotin
  */
 public class ProjectPageEventLog extends AbstractAction {
 
+	/**
+	 * Request parameter with page index.
+	 */
+	public static final String PAGE_PARAM = "eventPage";
+
 	private final ProjectIdentity identity;
 
 	public ProjectPageEventLog(final ProjectIdentity identity) {
@@ -25,4 +32,33 @@ public class ProjectPageEventLog extends AbstractAction {
 		return identity;
 	}
 
+	/**
+	 * Parse and limit requested page index.
+	 */
+	@Jelly
+	public int page(final String value) {
+		int page = 0;
+		try {
+			if (value != null) {
+				page = Integer.parseInt(value.trim());
+			}
+		} catch (final NumberFormatException e) {
+			page = 0;
+		}
+		return Math.max(0, Math.min(page, pageCount() - 1));
+	}
+
+	@Jelly
+	public int pageCount() {
+		return identity.eventLog().pageCount(ProjectEventLog.PAGE_SIZE);
+	}
+
+	/**
+	 * Render page of events, newest first.
+	 */
+	@Jelly
+	public String render(final int page) {
+		return identity.eventLog().render(page, ProjectEventLog.PAGE_SIZE);
+	}
+
 }
@@ -0,0 +1,350 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.maven.ModuleName;
+import hudson.maven.MavenModule;
+import hudson.maven.MavenModuleSet;
+import hudson.model.TopLevelItem;
+import hudson.model.AbstractProject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * In-memory index of cascade family projects.
+ * <p>
+ * Avoids scanning all jenkins items on every identity lookup. Kept current by
+ * {@link ProjectListener} and {@link ProjectIdentity} owner changes; entries
+ * are verified against actual project identity on every read.
+ * <p>
+ * Also provides module name indexes of family members and of all maven
+ * projects, which are built on demand and discarded on project changes,
+ * layout builds and cascade start. A miss rescans once, later misses are
+ * cached until the index is discarded.
+ *
+ * @author Andrei Pozolotin
+ */
+public class ProjectRegistry {
+
+	/**
+	 * Module name index with cached negative lookups.
+	 */
+	private static class ModuleIndex {
+
+		/** Built after a miss, so misses are final till invalidation. */
+		final boolean isRescan;
+
+		final Map<ModuleName, MavenModuleSet> map;
+
+		ModuleIndex(final Collection<MavenModuleSet> projectList,
+				final String scope, final boolean isRescan) {
+			this.map = moduleIndex(projectList, scope);
+			this.isRescan = isRescan;
+		}
+
+		/**
+		 * Valid indexed project, or null.
+		 */
+		MavenModuleSet find(final ModuleName moduleName) {
+			final MavenModuleSet project = map.get(moduleName);
+			if (project != null && isValid(moduleName, project)) {
+				return project;
+			}
+			return null;
+		}
+
+		/**
+		 * Lookup failure can be resolved by a rescan: stale entry, or a miss
+		 * which was not rescanned yet.
+		 */
+		boolean needsRescan(final ModuleName moduleName) {
+			return map.containsKey(moduleName) || !isRescan;
+		}
+
+	}
+
+	protected final static Logger log = Logger.getLogger(ProjectRegistry.class
+			.getName());
+
+	/**
+	 * [ familyID : [ role/family/project : project ] ]
+	 */
+	@SuppressWarnings("rawtypes")
+	private static final ConcurrentMap<String, ConcurrentMap<String, AbstractProject>> familyMap = new ConcurrentHashMap<String, ConcurrentMap<String, AbstractProject>>();
+
+	/**
+	 * [ module name : maven project ] for all maven projects.
+	 */
+	private static volatile ModuleIndex globalIndex;
+
+	/**
+	 * [ familyID : [ module name : member project ] ]
+	 */
+	private static final ConcurrentMap<String, ModuleIndex> moduleMap = new ConcurrentHashMap<String, ModuleIndex>();
+
+	/**
+	 * Produce existing or create new family index.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static ConcurrentMap<String, AbstractProject> ensure(
+			final String familyID) {
+		ConcurrentMap<String, AbstractProject> family = familyMap
+				.get(familyID);
+		if (family == null) {
+			family = new ConcurrentHashMap<String, AbstractProject>();
+			familyMap.putIfAbsent(familyID, family);
+			family = familyMap.get(familyID);
+		}
+		return family;
+	}
+
+	/**
+	 * Find all registered projects of a family.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static List<AbstractProject> familyProjectList(final String familyID) {
+		final List<AbstractProject> projectList = new ArrayList<AbstractProject>();
+		if (familyID == null) {
+			return projectList;
+		}
+		final Map<String, AbstractProject> family = familyMap.get(familyID);
+		if (family == null) {
+			return projectList;
+		}
+		for (final Map.Entry<String, AbstractProject> entry : family.entrySet()) {
+			final AbstractProject project = entry.getValue();
+			if (isValid(entry.getKey(), project)) {
+				projectList.add(project);
+			} else {
+				family.remove(entry.getKey(), project);
+			}
+		}
+		return projectList;
+	}
+
+	/**
+	 * Find registered project by role, family, project.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static AbstractProject find(final ProjectIdentity identity) {
+		final Map<String, AbstractProject> family = familyMap.get(identity
+				.getFamilyID());
+		if (family == null) {
+			return null;
+		}
+		PluginMetrics.counter("cascade_registry_lookup_total", "index",
+				"identity").increment();
+		final String key = identity.identityRoleFamilyProject();
+		final AbstractProject project = family.get(key);
+		if (project == null) {
+			return null;
+		}
+		if (isValid(key, project)) {
+			return project;
+		}
+		family.remove(key, project);
+		return null;
+	}
+
+	/**
+	 * Discard module name index of a family.
+	 */
+	public static void invalidateModules(final String familyID) {
+		if (familyID != null) {
+			moduleMap.remove(familyID);
+		}
+	}
+
+	/**
+	 * Verify module index entry still matches project root module.
+	 */
+	private static boolean isValid(final ModuleName moduleName,
+			final MavenModuleSet project) {
+		final MavenModule rootModule = project.getRootModule();
+		if (rootModule == null) {
+			return false;
+		}
+		return moduleName.equals(rootModule.getModuleName());
+	}
+
+	/**
+	 * Verify registry entry still matches project identity.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static boolean isValid(final String key,
+			final AbstractProject project) {
+		final ProjectIdentity identity = ProjectIdentity.identity(project);
+		if (identity == null) {
+			return false;
+		}
+		return key.equals(identity.identityRoleFamilyProject());
+	}
+
+	/**
+	 * Find maven project by root module name, among all jenkins projects.
+	 */
+	public static MavenModuleSet mavenProject(final ModuleName moduleName) {
+		PluginMetrics.counter("cascade_registry_lookup_total", "index",
+				"global").increment();
+		ModuleIndex index = globalIndex;
+		if (index == null) {
+			index = new ModuleIndex(PluginUtilities.mavenProjectList(),
+					"global", false);
+			globalIndex = index;
+		}
+		final MavenModuleSet project = index.find(moduleName);
+		if (project != null || !index.needsRescan(moduleName)) {
+			return project;
+		}
+		/** Stale entry, or project which got root module since indexed. */
+		index = new ModuleIndex(PluginUtilities.mavenProjectList(), "global",
+				true);
+		globalIndex = index;
+		return index.find(moduleName);
+	}
+
+	/**
+	 * Find family member project by root module name.
+	 */
+	public static MavenModuleSet memberProject(final String familyID,
+			final ModuleName moduleName) {
+		if (familyID == null) {
+			return null;
+		}
+		PluginMetrics.counter("cascade_registry_lookup_total", "index",
+				"family").increment();
+		ModuleIndex index = moduleIndex(familyID, false);
+		final MavenModuleSet project = index.find(moduleName);
+		if (project != null || !index.needsRescan(moduleName)) {
+			return project;
+		}
+		/** Stale entry, or member which got root module since indexed. */
+		index = moduleIndex(familyID, true);
+		return index.find(moduleName);
+	}
+
+	/**
+	 * Build module name index from project list.
+	 */
+	private static Map<ModuleName, MavenModuleSet> moduleIndex(
+			final Collection<MavenModuleSet> projectList, final String scope) {
+		PluginMetrics.counter("cascade_registry_scan_total", "index", scope)
+				.increment();
+		final Map<ModuleName, MavenModuleSet> index = new HashMap<ModuleName, MavenModuleSet>();
+		for (final MavenModuleSet project : projectList) {
+			final MavenModule rootModule = project.getRootModule();
+			if (rootModule == null) {
+				continue;
+			}
+			index.put(rootModule.getModuleName(), project);
+		}
+		return Collections.unmodifiableMap(index);
+	}
+
+	/**
+	 * Produce existing or create new module name index of a family.
+	 */
+	public static Map<ModuleName, MavenModuleSet> moduleIndex(
+			final String familyID) {
+		return moduleIndex(familyID, false).map;
+	}
+
+	/**
+	 * Produce existing or create new module name index of a family.
+	 * 
+	 * @param isRescan
+	 *            discard existing index after a lookup miss
+	 */
+	private static ModuleIndex moduleIndex(final String familyID,
+			final boolean isRescan) {
+		ModuleIndex index = moduleMap.get(familyID);
+		if (index == null || isRescan) {
+			index = new ModuleIndex(
+					ProjectIdentity.memberProjectList(familyID), "family",
+					isRescan);
+			moduleMap.put(familyID, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Discard and re-create index from all jenkins projects.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static void rebuild() {
+		familyMap.clear();
+		moduleMap.clear();
+		globalIndex = null;
+		int count = 0;
+		for (final TopLevelItem item : PluginUtilities.projectList()) {
+			if (item instanceof AbstractProject) {
+				if (register((AbstractProject) item)) {
+					count++;
+				}
+			}
+		}
+		PluginMetrics.counter("cascade_registry_scan_total", "index",
+				"identity").increment();
+		log.info("Registry rebuilt, family projects: " + count);
+	}
+
+	/**
+	 * Add project with identity to the index.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static boolean register(final AbstractProject project) {
+		/** Any maven project can change global module index. */
+		globalIndex = null;
+		final ProjectIdentity identity = ProjectIdentity.identity(project);
+		if (identity == null || !identity.isValid()) {
+			return false;
+		}
+		register(project, identity);
+		return true;
+	}
+
+	/**
+	 * Add project with given identity to the index.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static void register(final AbstractProject project,
+			final ProjectIdentity identity) {
+		if (project == null || !identity.isValid()) {
+			return;
+		}
+		ensure(identity.getFamilyID()).put(
+				identity.identityRoleFamilyProject(), project);
+		invalidateModules(identity.getFamilyID());
+		GraphCache.invalidate(identity.getFamilyID());
+	}
+
+	/**
+	 * Remove project from the index, regardless of current identity.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static void unregister(final AbstractProject project) {
+		globalIndex = null;
+		for (final Map<String, AbstractProject> family : familyMap.values()) {
+			family.values().removeAll(Collections.singleton(project));
+		}
+		moduleMap.clear();
+		GraphCache.invalidateAll();
+	}
+
+	private ProjectRegistry() {
+	}
+
+}
@@ -5,7 +5,7 @@
  *
  * http://www.opensource.org/licenses/bsd-license.php
  */
-package design.run_exclusion;
+package com.barchart.jenkins.cascade;
 
 import hudson.Extension;
 import hudson.model.TaskListener;
@@ -15,8 +15,6 @@ import hudson.model.listeners.RunListener;
 
 import java.util.logging.Logger;
 
-import com.barchart.jenkins.cascade.ProjectIdentity;
-
 /**
  * Helps cascade family build mutual exclusion.
  * 
@@ -33,7 +31,6 @@ public class RunBuildListener extends RunListener<AbstractBuild<?, ?>> {
 
 		final AbstractProject<?, ?> project = build.getProject();
 		final ProjectIdentity identity = ProjectIdentity.identity(project);
-		// log.info("@@@ identity: " + project.getName() + " : " + identity);
 
 		if (identity == null) {
 			return;
@@ -45,6 +42,12 @@ public class RunBuildListener extends RunListener<AbstractBuild<?, ?>> {
 			lock.setActive(identity.role(), false);
 		}
 
+		/** Build can change member pom.xml and family layout. */
+		GraphCache.invalidate(identity.getFamilyID());
+
+		identity.log("Build finalized: " + build.getFullDisplayName() + " "
+				+ build.getResult());
+
 	}
 
 	@Override
@@ -53,7 +56,6 @@ public class RunBuildListener extends RunListener<AbstractBuild<?, ?>> {
 
 		final AbstractProject<?, ?> project = build.getProject();
 		final ProjectIdentity identity = ProjectIdentity.identity(project);
-		// log.info("@@@ identity: " + project.getName() + " : " + identity);
 
 		if (identity == null) {
 			return;
@@ -63,8 +65,11 @@ public class RunBuildListener extends RunListener<AbstractBuild<?, ?>> {
 
 		synchronized (lock) {
 			lock.setActive(identity.role(), true);
+			lock.release(project);
 		}
 
+		identity.log("Build started: " + build.getFullDisplayName());
+
 	}
 
 }
@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.Extension;
+import hudson.model.AbstractProject;
+import hudson.model.Action;
+import hudson.model.Queue;
+import hudson.model.Queue.Item;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * Controls when cascade family project builds are permitted to run.
+ * <p>
+ * Blocked tasks stay in the queue and start once the family is free; decision
+ * uses per-family role counters maintained by {@link RunBuildListener}, and
+ * role reservations of permitted tasks which have not started yet.
+ *
+ * @author Andrei Pozolotin
+ */
+@Extension
+public class RunDispatcher extends QueueTaskDispatcher {
+
+	protected final static Logger log = Logger.getLogger(RunDispatcher.class
+			.getName());
+
+	/**
+	 * Number of tracked queue items, before items which left the queue are
+	 * pruned.
+	 */
+	public static final int DECISION_LIMIT = 1000;
+
+	/**
+	 * Cause of no block.
+	 */
+	public static final CauseOfBlockage YES_CAN_RUN = null;
+
+	/**
+	 * [ queue item id : last decision is permit ]
+	 */
+	private static final ConcurrentMap<Integer, Boolean> decisionMap = new ConcurrentHashMap<Integer, Boolean>();
+
+	/**
+	 * Count dispatch decision when it is new or changed for a queue item,
+	 * since queue asks again for every blocked item on every maintenance.
+	 */
+	public static void count(final Queue.Item item, final ProjectIdentity identity,
+			final boolean isPermit) {
+		final Boolean past = decisionMap.put(item.id, isPermit);
+		if (past != null && past == isPermit) {
+			return;
+		}
+		PluginMetrics.counter("cascade_dispatch_total", "role",
+				identity.role().name(), "decision",
+				isPermit ? "permit" : "block").increment();
+		if (decisionMap.size() > DECISION_LIMIT) {
+			final Queue queue = Queue.getInstance();
+			for (final Integer id : decisionMap.keySet()) {
+				if (queue.getItem(id) == null) {
+					decisionMap.remove(id);
+				}
+			}
+		}
+	}
+
+	public static ProjectIdentity identity(final Item item) {
+		final AbstractProject<?, ?> project = project(item);
+		if (project == null) {
+			return null;
+		}
+		final ProjectIdentity identity = ProjectIdentity.identity(project);
+		return identity;
+	}
+
+	public static AbstractProject<?, ?> project(final Item item) {
+		if (!(item.task instanceof AbstractProject)) {
+			return null;
+		}
+		final AbstractProject<?, ?> project = (AbstractProject<?, ?>) item.task;
+		return project;
+	}
+
+	/**
+	 * Verify if project is present in the build queue.
+	 */
+	public static boolean queueHas(final AbstractProject<?, ?> project) {
+		final Queue queue = Queue.getInstance();
+		return queue.getItem(project) != null;
+	}
+
+	/**
+	 * Report any cascade family projects are pending or building.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static Map<String, AbstractProject> reportActiveFamilyProjects(
+			final ProjectIdentity source) {
+		final Map<String, AbstractProject> map = new TreeMap<String, AbstractProject>();
+		for (final AbstractProject project : source.familyProjectList()) {
+			if (project.isBuilding()) {
+				map.put(project.getName(), project);
+				continue;
+			}
+			if (queueHas(project)) {
+				map.put(project.getName(), project);
+				continue;
+			}
+		}
+		return map;
+	}
+
+	@Override
+	public CauseOfBlockage canRun(final Queue.Item item) {
+
+		final ProjectIdentity identity = identity(item);
+
+		/** Cascade family projects must have identity. */
+		if (identity == null) {
+			return YES_CAN_RUN;
+		}
+
+		final RunLock lock = RunLock.ensure(identity.getFamilyID());
+
+		final CauseOfBlockage cause;
+
+		synchronized (lock) {
+			lock.prune();
+			cause = canRunDueBuild(identity, lock, item);
+			if (cause == YES_CAN_RUN) {
+				lock.reserve(project(item), identity.role());
+			}
+		}
+
+		count(item, identity, cause == YES_CAN_RUN);
+
+		return cause;
+
+	}
+
+	/**
+	 * Role exclusion rules against running family builds.
+	 */
+	public CauseOfBlockage canRunDueBuild(final ProjectIdentity identity,
+			final RunLock lock, final Queue.Item item) {
+
+		final String source = project(item).getFullName();
+
+		switch (identity.role()) {
+
+		case LAYOUT:
+			if (lock.hasLayout(source)) {
+				return new RunBlockCause(
+						"Layout build is waiting on another layout build.");
+			}
+			if (lock.hasCascade(source)) {
+				return new RunBlockCause(
+						"Layout build is waiting on a cascade build.");
+			}
+			if (lock.hasMember(source)) {
+				return new RunBlockCause(
+						"Layout build is waiting on a member build.");
+			}
+			break;
+
+		case CASCADE:
+			if (lock.hasLayout(source)) {
+				return new RunBlockCause(
+						"Cascade build is waiting on a layout build.");
+			}
+			if (lock.hasCascade(source)) {
+				return new RunBlockCause(
+						"Cascade build is waiting on other cascade build.");
+			}
+			if (lock.hasMember(source)) {
+				return new RunBlockCause(
+						"Cascade build is waiting on a member build.");
+			}
+			break;
+
+		case MEMBER:
+			if (lock.hasLayout(source)) {
+				final List<Action> actionList = item.getActions();
+				if (LayoutLogicAction.hasAction(actionList)) {
+					/** Member build started by layout build, proceed. */
+					return YES_CAN_RUN;
+				} else {
+					return new RunBlockCause(
+							"Member build is waiting on a layout build.");
+				}
+			}
+			if (lock.hasCascade(source)) {
+				final List<Action> actionList = item.getActions();
+				if (CascadeLogicAction.hasAction(actionList)) {
+					/** Cascade member build, proceed. */
+					return YES_CAN_RUN;
+				} else {
+					/** Non-cascade member build, must wait. */
+					return new RunBlockCause(
+							"Non-cascade member build is waiting on a cascade build.");
+				}
+			}
+			/** Members do not exclude each other. */
+			break;
+
+		default:
+			break;
+		}
+
+		return YES_CAN_RUN;
+
+	}
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.model.AbstractProject;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents mutual exclusion between different cascade family project builds.
+ * <p>
+ * Lock is a singleton per cascade project family during the life of jenkins
+ * instance. Permitted tasks reserve their role until the build starts, so
+ * tasks permitted in the same queue pass see each other.
+ * 
+ * @author Andrei Pozolotin
+ */
+public class RunLock {
+
+	/**
+	 * Permitted task which has not started yet.
+	 */
+	private static class Reservation {
+
+		final AbstractProject<?, ?> project;
+
+		final ProjectRole role;
+
+		/** Last permit time, millis. */
+		final long time = System.currentTimeMillis();
+
+		Reservation(final AbstractProject<?, ?> project, final ProjectRole role) {
+			this.project = project;
+			this.role = role;
+		}
+
+	}
+
+	/**
+	 * Keep reservation of a task which left the queue this long, while its
+	 * build is being created.
+	 */
+	public static final long RESERVE_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+	/***
+	 * [ familyID : runLock ]
+	 */
+	private static final ConcurrentMap<String, RunLock> lockMap = new ConcurrentHashMap<String, RunLock>();
+
+	/**
+	 * Produce existing or create new build lock.
+	 */
+	public static RunLock ensure(final String familyID) {
+		RunLock lock = lockMap.get(familyID);
+		if (lock == null) {
+			lock = new RunLock(familyID);
+			lockMap.putIfAbsent(familyID, lock);
+			lock = lockMap.get(familyID);
+		}
+		return lock;
+	}
+
+	/**
+	 * Ensure proper class loading and initialization.
+	 */
+	public static void init() {
+	}
+
+	/**
+	 * Current locks of all families.
+	 */
+	public static Collection<RunLock> lockList() {
+		return lockMap.values();
+	}
+
+	private final String familyID;
+
+	/**
+	 * [ project name : reservation ]
+	 */
+	private final ConcurrentMap<String, Reservation> reserveMap = new ConcurrentHashMap<String, Reservation>();
+
+	/**
+	 * Number of active projects of a given role.
+	 */
+	private final EnumMap<ProjectRole, AtomicInteger> roleCountMap = new EnumMap<ProjectRole, AtomicInteger>(
+			ProjectRole.class);
+
+	public RunLock(final String familyID) {
+		this.familyID = familyID;
+		for (final ProjectRole role : ProjectRole.values()) {
+			roleCountMap.put(role, new AtomicInteger(0));
+		}
+	}
+
+	/**
+	 * Number of running projects with the role.
+	 */
+	public int count(final ProjectRole role) {
+		return roleCountMap.get(role).get();
+	}
+
+	/**
+	 * Cascade family served by this lock.
+	 */
+	public String familyID() {
+		return familyID;
+	}
+
+	/**
+	 * Check if have any running or permitted cascade projects in the family,
+	 * other than the source.
+	 */
+	public boolean hasCascade(final String source) {
+		return isActive(ProjectRole.CASCADE, source);
+	}
+
+	/**
+	 * Check if have any running or permitted layout projects in the family,
+	 * other than the source.
+	 */
+	public boolean hasLayout(final String source) {
+		return isActive(ProjectRole.LAYOUT, source);
+	}
+
+	/**
+	 * Check if have any running or permitted member projects in the family,
+	 * other than the source.
+	 */
+	public boolean hasMember(final String source) {
+		return isActive(ProjectRole.MEMBER, source);
+	}
+
+	/**
+	 * Check if have running or permitted projects with the role, other than
+	 * the source.
+	 */
+	public boolean isActive(final ProjectRole role, final String source) {
+		if (roleCountMap.get(role).get() > 0) {
+			return true;
+		}
+		for (final Map.Entry<String, Reservation> entry : reserveMap
+				.entrySet()) {
+			if (entry.getValue().role == role
+					&& !entry.getKey().equals(source)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Drop reservations of tasks which are neither queued nor building.
+	 */
+	public void prune() {
+		final long time = System.currentTimeMillis();
+		final Iterator<Reservation> iterator = reserveMap.values().iterator();
+		while (iterator.hasNext()) {
+			final Reservation reservation = iterator.next();
+			if (time - reservation.time < RESERVE_TIMEOUT) {
+				continue;
+			}
+			if (reservation.project.isBuilding()
+					|| RunDispatcher.queueHas(reservation.project)) {
+				continue;
+			}
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Drop reservation of a started project.
+	 */
+	public void release(final AbstractProject<?, ?> project) {
+		reserveMap.remove(project.getFullName());
+	}
+
+	/**
+	 * Reserve role for a permitted project till its build starts.
+	 */
+	public void reserve(final AbstractProject<?, ?> project,
+			final ProjectRole role) {
+		reserveMap.put(project.getFullName(), new Reservation(project, role));
+	}
+
+	/**
+	 * Change number of running projects with the role.
+	 */
+	public void setActive(final ProjectRole role, final boolean on) {
+		final AtomicInteger count = roleCountMap.get(role);
+		if (on) {
+			count.incrementAndGet();
+		} else {
+			/** Build started before plugin was loaded. */
+			while (true) {
+				final int past = count.get();
+				if (past <= 0 || count.compareAndSet(past, past - 1)) {
+					break;
+				}
+			}
+		}
+	}
+
+}
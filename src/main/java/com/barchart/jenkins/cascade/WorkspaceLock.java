@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package com.barchart.jenkins.cascade;
+
+import hudson.AbortException;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Shared workspace lock of a cascade family.
+ * <p>
+ * Checkout takes exclusive lock, builds which skip checkout take shared lock,
+ * so they only wait for a checkout in progress. Lock is fair, has a timeout
+ * and collects wait and hold times.
+ * <p>
+ * Lock is a singleton per cascade project family during the life of jenkins
+ * instance.
+ *
+ * @author Andrei Pozolotin
+ */
+public class WorkspaceLock {
+
+	/***
+	 * [ familyID : workspace lock ]
+	 */
+	private static final ConcurrentMap<String, WorkspaceLock> lockMap = new ConcurrentHashMap<String, WorkspaceLock>();
+
+	/**
+	 * Maximum lock wait time, millis.
+	 */
+	public static final long TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+	/**
+	 * Produce existing or create new workspace lock.
+	 */
+	public static WorkspaceLock ensure(final String familyID) {
+		WorkspaceLock lock = lockMap.get(familyID);
+		if (lock == null) {
+			lock = new WorkspaceLock(familyID);
+			lockMap.putIfAbsent(familyID, lock);
+			lock = lockMap.get(familyID);
+		}
+		return lock;
+	}
+
+	/**
+	 * Current locks of all families.
+	 */
+	public static Collection<WorkspaceLock> lockList() {
+		return lockMap.values();
+	}
+
+	private final String familyID;
+
+	/** Total lock hold time, millis. */
+	private final AtomicLong holdTime = new AtomicLong();
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(
+			true);
+
+	/** Number of shared lock acquisitions. */
+	private final AtomicLong readCount = new AtomicLong();
+
+	/** Number of failed acquisitions. */
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	/** Maximum lock wait time, millis. */
+	private final AtomicLong waitMax = new AtomicLong();
+
+	/** Total lock wait time, millis. */
+	private final AtomicLong waitTime = new AtomicLong();
+
+	/** Number of exclusive lock acquisitions. */
+	private final AtomicLong writeCount = new AtomicLong();
+
+	public WorkspaceLock(final String familyID) {
+		this.familyID = familyID;
+	}
+
+	/**
+	 * Obtain shared or exclusive lock.
+	 *
+	 * @return lock wait time, millis
+	 */
+	public long acquire(final boolean isExclusive)
+			throws InterruptedException, AbortException {
+
+		final long start = System.currentTimeMillis();
+
+		if (!lock(isExclusive).tryLock(TIMEOUT, TimeUnit.MILLISECONDS)) {
+			timeoutCount.incrementAndGet();
+			throw new AbortException("Workspace lock timeout: " + familyID);
+		}
+
+		final long wait = System.currentTimeMillis() - start;
+
+		if (isExclusive) {
+			writeCount.incrementAndGet();
+		} else {
+			readCount.incrementAndGet();
+		}
+
+		waitTime.addAndGet(wait);
+
+		long past = waitMax.get();
+		while (wait > past && !waitMax.compareAndSet(past, wait)) {
+			past = waitMax.get();
+		}
+
+		return wait;
+
+	}
+
+	/**
+	 * Cascade family served by this lock.
+	 */
+	public String familyID() {
+		return familyID;
+	}
+
+	public long holdTime() {
+		return holdTime.get();
+	}
+
+	/**
+	 * Exclusive lock is taken.
+	 */
+	public boolean isLocked() {
+		return lock.isWriteLocked();
+	}
+
+	private Lock lock(final boolean isExclusive) {
+		return isExclusive ? lock.writeLock() : lock.readLock();
+	}
+
+	/**
+	 * Number of threads waiting for the lock.
+	 */
+	public int queueLength() {
+		return lock.getQueueLength();
+	}
+
+	public long readCount() {
+		return readCount.get();
+	}
+
+	/**
+	 * Return lock obtained with {@link #acquire(boolean)}.
+	 *
+	 * @param acquireTime
+	 *            time when lock was obtained, millis
+	 * @return lock hold time, millis
+	 */
+	public long release(final boolean isExclusive, final long acquireTime) {
+		lock(isExclusive).unlock();
+		final long hold = System.currentTimeMillis() - acquireTime;
+		holdTime.addAndGet(hold);
+		return hold;
+	}
+
+	public long timeoutCount() {
+		return timeoutCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return familyID + " read=" + readCount + " write=" + writeCount
+				+ " timeout=" + timeoutCount + " wait=" + waitTime
+				+ " waitMax=" + waitMax + " hold=" + holdTime;
+	}
+
+	public long waitMax() {
+		return waitMax.get();
+	}
+
+	public long waitTime() {
+		return waitTime.get();
+	}
+
+	public long writeCount() {
+		return writeCount.get();
+	}
+
+}
@@ -0,0 +1,353 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package bench;
+
+import hudson.FilePath;
+import hudson.maven.ModuleName;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.util.FileUtils;
+
+import com.barchart.jenkins.cascade.CascadePlanAction;
+import com.barchart.jenkins.cascade.MavenPomRewriter;
+import com.barchart.jenkins.cascade.MavenPomSummary;
+import com.barchart.jenkins.cascade.PluginScmGit;
+import com.barchart.jenkins.cascade.PluginScmGitCache;
+
+/**
+ * Synthetic large cascade family generator for scale testing.
+ * <p>
+ * Produces a layout pom.xml with a chain of parent modules and member
+ * modules with dependency fan-out and fan-in, commits it into a local bare
+ * git repository, then times member pom reads, release planning and pom
+ * rewrite against budgets.
+ * <p>
+ * Usage: FamilyFixture [members] [parent-depth] [fan-out] [hubs] [folder]
+ * <p>
+ * Bare repository URI is printed at the end; use it as layout project scm
+ * in a development jenkins instance (mvn hpi:run) to profile layout and
+ * cascade builds.
+ * <p>
+ * Layout create and update, and a plan only cascade, are timed against
+ * budgets in {@link FamilyFixtureTest}; releases are not, since they run real
+ * maven release and versions goals, which resolve plugins and artifacts from
+ * remote repositories.
+ *
+ * @author Andrei Pozolotin
+ */
+public class FamilyFixture {
+
+	public static final String GROUP = "fixture";
+
+	public static final String POM_FILE = "pom.xml";
+
+	public static final String SNAPSHOT = "1.0.0-SNAPSHOT";
+
+	public static final String RELEASE = "1.0.0";
+
+	/**
+	 * Verify measured time against budget from system property.
+	 */
+	static void budget(final String name, final long time,
+			final long defaultBudget) {
+		final long budget = Long.getLong("fixture.budget." + name,
+				defaultBudget);
+		System.out.println(name + ": " + time + " ms (budget " + budget
+				+ " ms)");
+		if (time > budget) {
+			throw new IllegalStateException("Budget exceeded: " + name + " "
+					+ time + " > " + budget);
+		}
+	}
+
+	static int intArg(final String[] args, final int index,
+			final int defaultValue) {
+		return args.length > index ? Integer.parseInt(args[index])
+				: defaultValue;
+	}
+
+	public static void main(final String[] args) throws Exception {
+
+		final int memberCount = intArg(args, 0, 500);
+		final int parentDepth = intArg(args, 1, 3);
+		final int fanOut = intArg(args, 2, 5);
+		final int hubCount = intArg(args, 3, 10);
+		final File folder = new File(args.length > 4 ? args[4]
+				: "target/fixture");
+
+		final FamilyFixture fixture = new FamilyFixture(memberCount,
+				parentDepth, fanOut, hubCount, folder);
+
+		long time = System.currentTimeMillis();
+		fixture.generate();
+		fixture.publish();
+		System.out.println("generate: "
+				+ (System.currentTimeMillis() - time) + " ms");
+
+		time = System.currentTimeMillis();
+		final Map<ModuleName, MavenPomSummary> summaryMap = fixture.read();
+		budget("read", System.currentTimeMillis() - time, 10000);
+
+		time = System.currentTimeMillis();
+		final CascadePlanAction plan = fixture.plan(summaryMap);
+		budget("plan", System.currentTimeMillis() - time, 2000);
+		System.out.println("plan: " + plan.getOrderList().size()
+				+ " module(s) in " + plan.getLevelList().size()
+				+ " level(s), valid=" + plan.isValid());
+
+		time = System.currentTimeMillis();
+		final int changeCount = fixture.rewrite();
+		budget("rewrite", System.currentTimeMillis() - time, 5000);
+		System.out.println("rewrite: " + changeCount + " change(s)");
+
+		System.out.println("origin: " + fixture.origin().toURI());
+
+	}
+
+	static String memberName(final int index) {
+		return "member-" + index;
+	}
+
+	static String parentName(final int index) {
+		return "parent-" + index;
+	}
+
+	private final int fanOut;
+
+	private final File folder;
+
+	private final int hubCount;
+
+	private final int memberCount;
+
+	/** Every generated pom.xml, relative to work tree. */
+	private final List<String> pomList = new ArrayList<String>();
+
+	private final int parentDepth;
+
+	private final PersonIdent person = new PersonIdent("fixture",
+			"fixture@localhost");
+
+	private final Random random = new Random(0);
+
+	public FamilyFixture(final int memberCount, final int parentDepth,
+			final int fanOut, final int hubCount, final File folder) {
+		this.memberCount = memberCount;
+		this.parentDepth = Math.max(1, parentDepth);
+		this.fanOut = fanOut;
+		this.hubCount = Math.max(1, hubCount);
+		this.folder = folder;
+	}
+
+	/**
+	 * Upstream members of a member: hubs produce fan-in, other picks are
+	 * uniform; only lower index, so family is acyclic.
+	 */
+	Set<Integer> dependencies(final int index) {
+		final Set<Integer> set = new LinkedHashSet<Integer>();
+		if (index == 0) {
+			return set;
+		}
+		for (int count = 0; count < fanOut; count++) {
+			if (random.nextBoolean()) {
+				set.add(random.nextInt(Math.min(index, hubCount)));
+			} else {
+				set.add(random.nextInt(index));
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * Write layout, parent and member pom.xml files.
+	 */
+	public void generate() throws Exception {
+
+		FileUtils.delete(folder, FileUtils.RECURSIVE | FileUtils.IGNORE_ERRORS);
+
+		final StringBuilder modules = new StringBuilder();
+		for (int index = 0; index < parentDepth; index++) {
+			modules.append("\t\t<module>").append(parentName(index))
+					.append("</module>\n");
+		}
+		for (int index = 0; index < memberCount; index++) {
+			modules.append("\t\t<module>").append(memberName(index))
+					.append("</module>\n");
+		}
+
+		write(POM_FILE, pom("layout", null, "pom", "\t<modules>\n" + modules
+				+ "\t</modules>\n"));
+
+		for (int index = 0; index < parentDepth; index++) {
+			final String parent = index == 0 ? null : parentName(index - 1);
+			write(parentName(index) + "/" + POM_FILE,
+					pom(parentName(index), parent, "pom", ""));
+		}
+
+		final String parent = parentName(parentDepth - 1);
+
+		for (int index = 0; index < memberCount; index++) {
+			final StringBuilder dependencies = new StringBuilder();
+			dependencies.append("\t<dependencies>\n");
+			for (final int upstream : dependencies(index)) {
+				dependencies.append("\t\t<dependency>\n");
+				dependencies.append("\t\t\t<groupId>" + GROUP
+						+ "</groupId>\n");
+				dependencies.append("\t\t\t<artifactId>"
+						+ memberName(upstream) + "</artifactId>\n");
+				dependencies.append("\t\t\t<version>" + SNAPSHOT
+						+ "</version>\n");
+				dependencies.append("\t\t</dependency>\n");
+			}
+			dependencies.append("\t</dependencies>\n");
+			write(memberName(index) + "/" + POM_FILE,
+					pom(memberName(index), parent, "jar",
+							dependencies.toString()));
+		}
+
+	}
+
+	/**
+	 * Bare repository with generated family.
+	 */
+	public File origin() {
+		return new File(folder, "origin.git");
+	}
+
+	/**
+	 * Release plan from the last member, which has the deepest upstream.
+	 */
+	public CascadePlanAction plan(
+			final Map<ModuleName, MavenPomSummary> summaryMap)
+			throws Exception {
+		final CascadePlanAction.MemberSource source = new CascadePlanAction.MemberSource() {
+			public boolean isReleased(final ModuleName moduleName) {
+				return false;
+			}
+
+			public MavenPomSummary summary(final ModuleName moduleName) {
+				return summaryMap.get(moduleName);
+			}
+		};
+		final ModuleName rootName = new ModuleName(GROUP,
+				memberName(memberCount - 1));
+		return CascadePlanAction.create(source, rootName);
+	}
+
+	private String pom(final String artifactId, final String parent,
+			final String packaging, final String body) {
+		final StringBuilder text = new StringBuilder();
+		text.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		text.append("<project>\n");
+		text.append("\t<modelVersion>4.0.0</modelVersion>\n");
+		if (parent != null) {
+			text.append("\t<parent>\n");
+			text.append("\t\t<groupId>" + GROUP + "</groupId>\n");
+			text.append("\t\t<artifactId>" + parent + "</artifactId>\n");
+			text.append("\t\t<version>" + SNAPSHOT + "</version>\n");
+			text.append("\t\t<relativePath>../" + parent
+					+ "</relativePath>\n");
+			text.append("\t</parent>\n");
+		}
+		text.append("\t<groupId>" + GROUP + "</groupId>\n");
+		text.append("\t<artifactId>" + artifactId + "</artifactId>\n");
+		text.append("\t<version>" + SNAPSHOT + "</version>\n");
+		text.append("\t<packaging>" + packaging + "</packaging>\n");
+		text.append(body);
+		text.append("</project>\n");
+		return text.toString();
+	}
+
+	/**
+	 * Commit work tree and push it into bare origin.
+	 */
+	public void publish() throws Exception {
+
+		Git.init().setBare(true).setDirectory(origin()).call()
+				.getRepository().close();
+
+		final File workspace = workspace();
+
+		Git.init().setDirectory(workspace).call().getRepository().close();
+
+		PluginScmGit.doAdd(workspace, ".");
+		PluginScmGit.doCommit(workspace, person, "fixture");
+
+		final Git git = PluginScmGitCache.open(workspace);
+		try {
+			git.push().setRemote(origin().getAbsolutePath())
+					.setRefSpecs(new RefSpec("refs/heads/master"))
+					.call();
+		} finally {
+			PluginScmGitCache.release(workspace);
+		}
+
+		PluginScmGitCache.evict(workspace);
+
+	}
+
+	/**
+	 * Bulk read of all generated pom.xml summaries.
+	 */
+	public Map<ModuleName, MavenPomSummary> read() throws Exception {
+		final List<FilePath> fileList = new ArrayList<FilePath>();
+		for (final String path : pomList) {
+			fileList.add(new FilePath(new File(workspace(), path)));
+		}
+		final Map<ModuleName, MavenPomSummary> summaryMap = new HashMap<ModuleName, MavenPomSummary>();
+		for (final MavenPomSummary summary : MavenPomSummary.read(fileList)
+				.values()) {
+			summaryMap.put(summary.moduleName(), summary);
+		}
+		return summaryMap;
+	}
+
+	/**
+	 * Rewrite all pom.xml files to release versions, in memory.
+	 *
+	 * @return number of changes
+	 */
+	public int rewrite() throws Exception {
+		final Map<String, String> versionMap = new HashMap<String, String>();
+		for (int index = 0; index < parentDepth; index++) {
+			versionMap.put(GROUP + ":" + parentName(index), RELEASE);
+		}
+		for (int index = 0; index < memberCount; index++) {
+			versionMap.put(GROUP + ":" + memberName(index), RELEASE);
+		}
+		final List<String> changeList = new ArrayList<String>();
+		for (final String path : pomList) {
+			final String text = new FilePath(new File(workspace(), path))
+					.readToString();
+			MavenPomRewriter.rewrite(text, versionMap, changeList);
+		}
+		return changeList.size();
+	}
+
+	public File workspace() {
+		return new File(folder, "work");
+	}
+
+	private void write(final String path, final String text)
+			throws Exception {
+		new FilePath(new File(workspace(), path)).write(text, "UTF-8");
+		pomList.add(path);
+	}
+
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2013 Barchart, Inc. <http://www.barchart.com/>
+ *
+ * All rights reserved. Licensed under the OSI BSD License.
+ *
+ * http://www.opensource.org/licenses/bsd-license.php
+ */
+package bench;
+
+import static org.junit.Assert.*;
+import hudson.maven.MavenModuleSet;
+import hudson.maven.ModuleName;
+import hudson.plugins.git.BranchSpec;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.SubmoduleConfig;
+import hudson.plugins.git.UserRemoteConfig;
+import hudson.plugins.git.extensions.GitSCMExtension;
+import hudson.plugins.git.extensions.impl.LocalBranch;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.barchart.jenkins.cascade.CascadeBuild;
+import com.barchart.jenkins.cascade.CascadePlanAction;
+import com.barchart.jenkins.cascade.CascadeProject;
+import com.barchart.jenkins.cascade.DoCascadeBadge;
+import com.barchart.jenkins.cascade.DoLayoutBadge;
+import com.barchart.jenkins.cascade.LayoutArgumentsAction;
+import com.barchart.jenkins.cascade.LayoutBuildCause;
+import com.barchart.jenkins.cascade.LayoutBuildWrapper;
+import com.barchart.jenkins.cascade.LayoutOptions;
+import com.barchart.jenkins.cascade.MemberBuildAction;
+import com.barchart.jenkins.cascade.MemberBuildCause;
+import com.barchart.jenkins.cascade.ProjectAction;
+import com.barchart.jenkins.cascade.ProjectIdentity;
+import com.barchart.jenkins.cascade.ProjectRegistry;
+
+/**
+ * Time layout create, layout update and a plan only cascade over a generated
+ * family, against budgets.
+ * <p>
+ * Family size: -Dfixture.members=20; budgets, ms:
+ * -Dfixture.budget.layout-create, -Dfixture.budget.layout-update,
+ * -Dfixture.budget.cascade-plan.
+ *
+ * @author Andrei Pozolotin
+ */
+public class FamilyFixtureTest {
+
+	public static final int PARENT_DEPTH = 3;
+
+	/**
+	 * Verify measured time against budget from system property.
+	 */
+	static void budget(final String name, final long time,
+			final long defaultBudget) {
+		final long budget = Long.getLong("fixture.budget." + name,
+				defaultBudget);
+		assertTrue("Budget exceeded: " + name + " " + time + " > " + budget,
+				time <= budget);
+	}
+
+	/**
+	 * Layout project scm: generated origin, single branch, local branch.
+	 */
+	static GitSCM gitScm(final File origin) {
+		return new GitSCM( //
+				Collections.singletonList(new UserRemoteConfig(origin.toURI()
+						.toString(), "origin", null, null)), //
+				Collections.singletonList(new BranchSpec("master")), //
+				false, //
+				Collections.<SubmoduleConfig> emptyList(), //
+				null, //
+				null, //
+				Collections.<GitSCMExtension> singletonList(new LocalBranch(
+						"master")) //
+		);
+	}
+
+	/**
+	 * Shared workspace, members are validated after layout, so their pom.xml
+	 * can be read by cascade.
+	 */
+	static LayoutOptions layoutOptions() {
+		return new LayoutOptions( //
+				LayoutOptions.MAVEN_VALIDATE_GOALS, //
+				LayoutOptions.MEMBER_PROJECT_NAME, //
+				LayoutOptions.LAYOUT_VIEW_NAME, //
+				LayoutOptions.CASCADE_PROJECT_NAME, //
+				true, // useSharedWorkspace
+				true, // buildAfterLayout
+				false, // syncReleasePlugins
+				false, // useGitMirror
+				false // useSparseCheckout
+		);
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Rule
+	public JenkinsRule jenkins = new JenkinsRule();
+
+	/**
+	 * Layout build, including member validation builds it schedules.
+	 *
+	 * @return elapsed time, ms
+	 */
+	long layout(final MavenModuleSet layoutProject, final ProjectAction action)
+			throws Exception {
+		final long time = System.currentTimeMillis();
+		jenkins.assertBuildStatusSuccess(layoutProject.scheduleBuild2(0,
+				new LayoutBuildCause(), new LayoutArgumentsAction(action.name),
+				new DoLayoutBadge(), action.badge()));
+		jenkins.waitUntilNoActivity();
+		return System.currentTimeMillis() - time;
+	}
+
+	@Test
+	public void layoutAndPlan() throws Exception {
+
+		final int memberCount = Integer.getInteger("fixture.members", 20);
+
+		final FamilyFixture fixture = new FamilyFixture(memberCount,
+				PARENT_DEPTH, 5, 5, folder.newFolder("fixture"));
+		fixture.generate();
+		fixture.publish();
+
+		jenkins.configureDefaultMaven();
+
+		final MavenModuleSet layoutProject = jenkins
+				.createMavenProject("layout");
+		layoutProject.setScm(gitScm(fixture.origin()));
+		layoutProject.getBuildWrappersList().add(
+				new LayoutBuildWrapper(null, layoutOptions(), layoutProject
+						.getName()));
+
+		/** Every parent and member module becomes a member project. */
+		final int projectCount = memberCount + PARENT_DEPTH;
+
+		budget("layout-create", layout(layoutProject, ProjectAction.CREATE),
+				300 * 1000);
+
+		final String familyID = ProjectIdentity.familyID(layoutProject);
+		assertEquals(projectCount, ProjectIdentity.memberProjectList(familyID)
+				.size());
+
+		budget("layout-update", layout(layoutProject, ProjectAction.UPDATE),
+				300 * 1000);
+
+		assertEquals(projectCount, ProjectIdentity.memberProjectList(familyID)
+				.size());
+
+		/** Plan from the last member, which has the deepest upstream. */
+		final MavenModuleSet memberProject = ProjectRegistry.memberProject(
+				familyID, new ModuleName(FamilyFixture.GROUP,
+						FamilyFixture.memberName(memberCount - 1)));
+		assertNotNull(memberProject);
+
+		final ProjectIdentity identity = ProjectIdentity
+				.identity(memberProject);
+		final CascadeProject cascadeProject = identity.cascadeProject();
+		assertNotNull(cascadeProject);
+
+		final MemberBuildAction action = new MemberBuildAction(identity,
+				FamilyFixture.RELEASE, null, true);
+
+		final long time = System.currentTimeMillis();
+		final CascadeBuild build = jenkins.assertBuildStatusSuccess(cascadeProject
+				.scheduleBuild2(0, new MemberBuildCause(), action,
+						new DoCascadeBadge()));
+		budget("cascade-plan", System.currentTimeMillis() - time, 30 * 1000);
+
+		final CascadePlanAction plan = build.getPlan();
+		assertNotNull(plan);
+		assertTrue(plan.isValid());
+
+		final CascadePlanAction expected = fixture.plan(fixture.read());
+		assertEquals(expected.getOrderList(), plan.getOrderList());
+		assertEquals(expected.getLevelList().size(), plan.getLevelList()
+				.size());
+
+		/** Plan only cascade schedules no maven builds. */
+		assertEquals(0, build.getReleaseCount());
+
+	}
+
+}